@@ -2,28 +2,41 @@ package Agent;
 
 import Calc.Vector2D;
 import Simulator.Casino;
+import Simulator.FrameSnapshot;
 import java.awt.*;
-import java.awt.image.BufferedImage;
+import Utils.SpriteCache;
 import java.io.File;
-import java.io.IOException;
-import javax.imageio.ImageIO;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class represents all the agents involved in the simulation
  *
  */
-public abstract class Agent extends Thread{
+public abstract class Agent extends Thread implements AgentWork {
+    //STATIC ATTRIBUTES
+    public static final long PARK = -1;
+
     //PRIVATE METHODS
     private boolean agentAlive = true;
+    private volatile Thread worker = this;
+    private CountDownLatch finished;
 
     //PROTECTED ATTRIBUTES
     protected Casino casino;
     //graphics variables
     protected Vector2D pos;
-    protected BufferedImage image;
+    private Image image;
+    private File imageFile;
     //PUBLIC ATTRIBUTES
     public abstract String getAgentState();
 
+    /**
+     * @return the state of the agent, or null if it is closed or out of the casino
+     */
+    public abstract Enum<?> getAgentStateValue();
+
     protected Agent(String name, Casino casino){
         super(name);
         this.casino = casino;
@@ -32,30 +45,115 @@ public abstract class Agent extends Thread{
     protected Agent(String name, Casino casino, File image){
         super(name);
         this.casino = casino;
-        try {
-            this.image = ImageIO.read(image);
-        } catch (IOException e) {
-            System.out.println("Couldn't load Agent Image Asset");
-        }
+        this.imageFile = image;
     }
 
     //PROTECTED METHODS
+    /**
+     * Starts the agent on its own thread, on the casino's executor if it has
+     * one, or hands it to the casino's event scheduler when the casino runs
+     * on a virtual clock
+     */
     protected void startAgent(){
-        this.start();
+        Executor executor = casino.getExecutor();
+
+        if (casino.isEventDriven()) casino.getScheduler().schedule(this, 0);
+        else if (executor == null) this.start();
+        else {
+            finished = new CountDownLatch(1);
+            executor.execute(this::work);
+        }
     }
 
     protected void killAgent(){
         this.agentAlive = false;
-        this.interrupt();
+        getWorker().interrupt();
+    }
+
+    /**
+     * Runs the agent's body on the executor's thread, which works for this
+     * agent, under its name, until the body returns
+     */
+    private void work(){
+        Thread current = Thread.currentThread();
+        String threadName = current.getName();
+
+        worker = current;
+        current.setName(getName());
+        try {
+            run();
+        } finally {
+            current.setName(threadName);
+            worker = this;
+            finished.countDown();
+        }
+    }
+
+    /**
+     * Resumes an agent that parked itself waiting for another agent
+     */
+    public void wake(){
+        if (casino.isEventDriven()) casino.getScheduler().wake(this);
+        else LockSupport.unpark(getWorker());
+    }
+
+    /**
+     * Drives the agent on its own thread, sleeping on the casino's clock
+     * between the steps
+     */
+    @Override
+    public void run(){
+        while (isAgentAlive()) {
+            try {
+                long delay = execute();
+                if (delay == PARK) LockSupport.park(this);
+                else if (delay > 0) casino.getClock().sleep(delay);
+            } catch (InterruptedException ie) {
+            }
+        }
+    }
+
+    /**
+     * Waits for the agent's body to finish, whichever thread runs it
+     */
+    public void joinAgent() throws InterruptedException {
+        if (finished != null) finished.await();
+        else this.join();
     }
 
     //GETTERS
     public Thread getWorker(){
-        return this;
+        return this.worker;
     }
 
     public Vector2D getPos() { return this.pos; }
 
+    /**
+     * Takes the image asset from the SpriteCache the first time the agent is
+     * drawn, so casinos without views never decode it, and agents sharing an
+     * asset share its pixels. The image is already scaled, so it is drawn
+     * without scaling it again on every frame.
+     *
+     * @param width  the width the agent is drawn at
+     * @param height the height the agent is drawn at
+     * @return the image of the agent, or null if it has none or couldn't be loaded
+     */
+    protected Image getImage(int width, int height) {
+        if (imageFile != null) {
+            this.image = SpriteCache.get(imageFile, width, height);
+            imageFile = null;
+        }
+        return this.image;
+    }
+
+    /**
+     * Starts decoding the agent's image asset in the background, before it is drawn
+     */
+    public void preloadImage() {
+        File asset = imageFile;
+        if (asset != null) SpriteCache.preload(asset);
+    }
+
     public boolean isAgentAlive(){
         return this.agentAlive;
     }
@@ -63,5 +161,13 @@ public abstract class Agent extends Thread{
     //ABSTRACT METHODS
     public abstract void stopWork();
     public abstract void startWork();
-    public abstract void draw(Graphics g);
+    /**
+     * Draws the agent as it was in a frame, not as it is now
+     *
+     * @param frame the frame being drawn
+     * @param index the index of the agent in the frame
+     * @param x     where the agent is drawn, it may lie between two frames
+     * @param y     where the agent is drawn, it may lie between two frames
+     */
+    public abstract void draw(Graphics g, FrameSnapshot frame, int index, float x, float y);
 }
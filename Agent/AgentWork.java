@@ -1,5 +1,11 @@
 package Agent;
 
 public interface AgentWork {
-    void execute() throws InterruptedException;
+    /**
+     * Carries out a single step of the agent's state machine.
+     *
+     * @return the milliseconds until the next step is due, or Agent.PARK if the
+     * agent has nothing to do until another agent wakes it up
+     */
+    long execute() throws InterruptedException;
 }
@@ -0,0 +1,29 @@
+package Calc;
+
+/**
+ * Money is kept as a whole number of cents, so adding and charging never
+ * drifts the way float dollars do
+ */
+public final class Money {
+    public static final long CENTS_PER_DOLLAR = 100;
+
+    private Money() {}
+
+    /**
+     * @param dollars an amount of dollars
+     * @return the amount in cents, rounded to the nearest cent
+     */
+    public static long ofDollars(double dollars) {
+        return Math.round(dollars * CENTS_PER_DOLLAR);
+    }
+
+    /**
+     * @param cents an amount of cents
+     * @return the amount in dollars with two decimals, like 1234.05
+     */
+    public static String format(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        long abs = Math.abs(cents);
+        return sign + (abs / CENTS_PER_DOLLAR) + "." + String.format("%02d", abs % CENTS_PER_DOLLAR);
+    }
+}
@@ -1,5 +1,10 @@
 package Calc;
 
+/**
+ * Mutable 2D vector. The static methods return new vectors, while the
+ * instance methods work in place so the agents can update their vectors on
+ * every tick without allocating.
+ */
 public class Vector2D {
     private float x;
     private float y;
@@ -13,8 +18,7 @@ public class Vector2D {
     }
 
     public float getMagnitude(){
-        double temp = (Math.pow(x, 2) + Math.pow(y, 2));
-        return (float) Math.sqrt(temp);
+        return (float) Math.sqrt(x * x + y * y);
     }
 
 
@@ -29,17 +33,37 @@ public class Vector2D {
     public float getY(){ return this.y; }
     public void setY(float y) { this.y = y; }
 
+    public void set(float x, float y){
+        this.x = x;
+        this.y = y;
+    }
+
     public void copy(Vector2D vec){
         setX(vec.getX());
         setY(vec.getY());
     }
 
+    /**
+     * Turns this vector into the unit vector with its direction, in place.
+     * A zero vector has no direction and is left as it is.
+     */
+    public void normalize(){
+        float mag = this.getMagnitude();
+        if (mag == 0) return;
+        this.x /= mag;
+        this.y /= mag;
+    }
+
     public Vector2D normalized(){
         float mag = this.getMagnitude();
         return new Vector2D(this.x / mag, this.y / mag);
     }
 
-    public static float distance(Vector2D from, Vector2D to) { return Vector2D.sub(to, from).getMagnitude(); }
+    public static float distance(Vector2D from, Vector2D to) {
+        float dx = to.x - from.x;
+        float dy = to.y - from.y;
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
 
     public static Vector2D add(Vector2D a, Vector2D b){
         return new Vector2D(a.x + b.x, a.y + b.y);
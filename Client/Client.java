@@ -16,6 +16,14 @@ public class Client {
     private static final int PRINCIPAL_PORT = 12345;
     private static final int MONITOR_PORT = 5000;
 
+    /**
+     * Time scale that runs the simulation as fast as possible
+     */
+    public static final int MAX_TIME_SCALE = 0;
+
+    private static DataOutputStream control;
+    private static int currentTimeScale = 1;
+
     /**
      * Main method that initializes the client GUI.
      */
@@ -31,12 +39,13 @@ public class Client {
      * @param slots     The number of slots.
      * @param croupiers The number of croupiers.
      * @param duration  The duration of the casino operation.
+     * @param timeScale How many times faster than real time the casino runs, or MAX_TIME_SCALE.
      */
-    public static void sendCasinoConfiguration(int players, int cashiers, int slots, int croupiers, int buffer, int duration) {
+    public static void sendCasinoConfiguration(int players, int cashiers, int slots, int croupiers, int buffer, int duration, int timeScale) {
         try {
             String response = connectToPrincipalServer();
             if (response != null) {
-                processSecondaryServerResponse(response, players, cashiers, slots, croupiers, buffer, duration);
+                processSecondaryServerResponse(response, players, cashiers, slots, croupiers, buffer, duration, timeScale);
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -68,23 +77,25 @@ public class Client {
      * @param slots     The number of slots.
      * @param croupiers The number of croupiers.
      * @param duration  The duration of the casino operation.
+     * @param timeScale The time scale of the casino operation.
      * @throws IOException If an error occurs during the connection.
      */
-    private static void processSecondaryServerResponse(String response, int players, int cashiers, int slots, int croupiers, int buffer, int duration) throws IOException {
+    private static void processSecondaryServerResponse(String response, int players, int cashiers, int slots, int croupiers, int buffer, int duration, int timeScale) throws IOException {
         String[] parts = response.split(":");
         if (parts.length == 3) {
             String secondaryHost = parts[0].trim();
             int secondaryPort = Integer.parseInt(parts[1].trim());
             int monitorPort = Integer.parseInt(parts[2].trim());
             System.out.println(monitorPort);
-            connectToSecondaryServer(secondaryHost, secondaryPort, monitorPort, players, cashiers, slots, croupiers, buffer, duration);
+            connectToSecondaryServer(secondaryHost, secondaryPort, monitorPort, players, cashiers, slots, croupiers, buffer, duration, timeScale);
         } else {
             System.err.println("Invalid response from Principal Server.");
         }
     }
 
     /**
-     * Connects to the secondary server and sends the casino details.
+     * Connects to the secondary server and sends the casino details. The connection
+     * stays open to send time scale changes until the monitor server stops.
      *
      * @param secondaryHost The host of the secondary server.
      * @param secondaryPort The port of the secondary server.
@@ -94,21 +105,55 @@ public class Client {
      * @param slots         The number of slots.
      * @param croupiers     The number of croupiers.
      * @param duration      The duration of the casino operation.
+     * @param timeScale     The time scale of the casino operation.
      * @throws IOException If an error occurs during the connection.
      */
-    private static void connectToSecondaryServer(String secondaryHost, int secondaryPort, int monitorPort, int players, int cashiers, int slots, int croupiers, int buffer, int duration) throws IOException {
-        try (Socket secondarySocket = new Socket(secondaryHost, secondaryPort);
-             DataInputStream in = new DataInputStream(secondarySocket.getInputStream());
-             DataOutputStream out = new DataOutputStream(secondarySocket.getOutputStream())) {
+    private static void connectToSecondaryServer(String secondaryHost, int secondaryPort, int monitorPort, int players, int cashiers, int slots, int croupiers, int buffer, int duration, int timeScale) throws IOException {
+        Socket secondarySocket = new Socket(secondaryHost, secondaryPort);
+        DataOutputStream out = new DataOutputStream(secondarySocket.getOutputStream());
+
+        byte monitorServerPort = (byte) (monitorPort - 5000);
 
-            byte monitorServerPort = (byte) (monitorPort - 5000);
+        sendCasinoDetails(out, (byte) players, (byte) cashiers, (byte) slots, (byte) croupiers, (byte) buffer, (byte) duration, (byte) timeScale, monitorServerPort);
+        control = out;
+        currentTimeScale = timeScale;
 
-            sendCasinoDetails(out, (byte) players, (byte) cashiers, (byte) slots, (byte) croupiers, (byte) buffer, (byte) duration, monitorServerPort);
-            new Thread(() -> listenToMonitor(monitorPort), "Client Casino").start();
+        new Thread(() -> {
+            listenToMonitor(monitorPort);
+            try {
+                secondarySocket.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "Client Casino").start();
+    }
 
+    /**
+     * Changes how many times faster than real time the running casino operates.
+     *
+     * @param timeScale The new time scale, or MAX_TIME_SCALE.
+     */
+    public static synchronized void setTimeScale(int timeScale) {
+        if (control == null) return;
+
+        try {
+            control.writeByte((byte) timeScale);
+            control.flush();
+            currentTimeScale = timeScale;
+        } catch (IOException e) {
+            System.err.println("Couldn't change the time scale: " + e.getMessage());
         }
     }
 
+    /**
+     * Returns the time scale the running casino was last set to.
+     *
+     * @return The current time scale, or MAX_TIME_SCALE.
+     */
+    public static int getTimeScale() {
+        return currentTimeScale;
+    }
+
     /**
      * Listens for updates from the monitor server.
      *
@@ -170,10 +215,11 @@ public class Client {
      * @param slots       The number of slots.
      * @param croupiers   The number of croupiers.
      * @param duration    The duration of the casino operation.
+     * @param timeScale   The time scale of the casino operation.
      * @param monitorPort The monitor server port.
      * @throws IOException If an error occurs during data transmission.
      */
-    private static void sendCasinoDetails(DataOutputStream out, byte players, byte cashiers, byte slots, byte croupiers, byte buffer, byte duration, byte monitorPort) throws IOException {
+    private static void sendCasinoDetails(DataOutputStream out, byte players, byte cashiers, byte slots, byte croupiers, byte buffer, byte duration, byte timeScale, byte monitorPort) throws IOException {
         out.writeByte(players);
         out.writeByte(cashiers);
         out.writeByte(slots);
@@ -181,6 +227,7 @@ public class Client {
         out.writeByte(buffer);
         out.writeByte(monitorPort);
         out.writeByte(duration);
+        out.writeByte(timeScale);
         out.flush();
     }
 }
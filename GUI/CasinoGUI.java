@@ -1,64 +1,40 @@
 package GUI;
 
-import Agent.Agent;
-import Calc.Vector2D;
 import Simulator.Casino;
+import Simulator.CasinoView;
+import Simulator.FrameBuffer;
+import Simulator.FrameSnapshot;
 import java.awt.*;
 import java.awt.image.BufferStrategy;
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Random;
-import javax.imageio.ImageIO;
+import java.awt.image.VolatileImage;
 import javax.swing.*;
 
-public class CasinoGUI {
-    //CASINO LOCATIONS
-    private static final Rectangle LOBBY_RECT = new Rectangle(0, 0, 200, 200);
-    private static final Rectangle CASHIER_RECT = new Rectangle(0, 200, 200, 200);
-    private static final Rectangle GAME_RECT = new Rectangle(200, 0, 300, 400);
-
-    private BufferedImage lobbyImage;
-    private BufferedImage cashierImage;
-    private BufferedImage gameImage;
+public class CasinoGUI implements CasinoView {
+    //Time between two frames, in ms, it grows when drawing can't keep up
+    private static final long MIN_FRAME_TIME = 16;
+    private static final long MAX_FRAME_TIME = 100;
+    //Longest time a step is stretched over, a pause in the simulation isn't a step
+    private static final long MAX_STEP_TIME = 500;
+    //Players on the floor from which they are drawn as a heatmap
+    public static final int HEATMAP_THRESHOLD = 2000;
 
     private final JFrame frame;
     private final CasinoCanvas canvas;
 
-    private final ArrayList<Agent> agents;
-    private static final Random rand = new Random();
+    private final FrameBuffer frames;
+    private final FloorScene scene;
     private Thread guiUpdater;
     private boolean guiAlive = false;
 
-    public static Vector2D getDestination(CASINO_LOCATION location){
-        float x = 0;
-        float y = 0;
-        switch (location){
-            case ENTRANCE -> {
-                x = 0;
-                y = 200;
-            }
-
-            case LOBBY -> {
-                x = rand.nextInt(LOBBY_RECT.x, LOBBY_RECT.x + LOBBY_RECT.width);
-                y = rand.nextInt(LOBBY_RECT.y, LOBBY_RECT.y + LOBBY_RECT.height);
-            }
-
-            case CASHIER_AREA -> {
-                x = rand.nextInt(CASHIER_RECT.x, CASHIER_RECT.x + CASHIER_RECT.width);
-                y = rand.nextInt(CASHIER_RECT.y, CASHIER_RECT.y + CASHIER_RECT.height);
-            }
-
-            case GAME_AREA -> {
-                x = rand.nextInt(GAME_RECT.x, GAME_RECT.x + GAME_RECT.width);
-                y = rand.nextInt(GAME_RECT.y, GAME_RECT.y + GAME_RECT.height);
-            }
-        }
-        return new Vector2D(x, y);
+    public CasinoGUI(Casino casino) {
+        this(casino, HEATMAP_THRESHOLD);
     }
 
-    public CasinoGUI(Casino casino) {
+    /**
+     * @param heatmapThreshold the players on the floor from which the GUI
+     *                         draws their density instead of each player
+     */
+    public CasinoGUI(Casino casino, int heatmapThreshold) {
         frame = new JFrame("CASINO SIMULATOR");
         ImageIcon logo = new ImageIcon("Assets/LogoUP-dorado.jpg");
         frame.setIconImage(logo.getImage());
@@ -67,50 +43,41 @@ public class CasinoGUI {
         frame.setLayout(new BorderLayout());
         frame.setResizable(false);
 
-        try {
-            cashierImage = ImageIO.read(new File("Assets/cashier-floor.jpg"));
-        } catch (IOException e) {
-            System.out.println("Couldn't load Cashier Image:" + e.getMessage());
-        }
+        scene = new FloorScene(casino, heatmapThreshold);
 
-        try {
-            gameImage = ImageIO.read(new File("Assets/game-area.png"));
-        } catch (IOException e) {
-            System.out.println("Couldn't load Game Image:" + e.getMessage());
-        }
-
-        try {
-            lobbyImage = ImageIO.read(new File("Assets/lobby.png"));
-        } catch (IOException e) {
-            System.out.println("Couldn't load Lobby Image:" + e.getMessage());
-        }
-
-        canvas = new CasinoCanvas();
-        canvas.setPreferredSize(new Dimension(500, 400));
+        canvas = new CasinoCanvas(casino.getWalkTick());
+        canvas.setPreferredSize(new Dimension(FloorScene.WIDTH, FloorScene.HEIGHT));
         frame.getContentPane().add(canvas, BorderLayout.CENTER);
         frame.pack();
         frame.setLocation(
                 (int) (Toolkit.getDefaultToolkit().getScreenSize().width * 0.5 + Toolkit.getDefaultToolkit().getScreenSize().width * 0.25 - frame.getWidth() * 0.5),
                 (int) (Toolkit.getDefaultToolkit().getScreenSize().height * 0.5 - frame.getHeight() * 0.5)
         );
-        agents = casino.getAgents();
+        frames = casino.getFrames();
     }
 
+    @Override
     public void start(){
         frame.setVisible(true);
         canvas.createBufferStrategy(2);
         guiAlive = true;
 
         guiUpdater = new Thread(() -> {
-            while(isGUIAlive() && !Thread.currentThread().isInterrupted()){
-                canvas.update();
-
-                try {
-                    Thread.sleep(16);
-                } catch (InterruptedException e) {
-                    System.out.println("GUI Updater Interrupted");
-                    break;
+            try {
+                while(isGUIAlive() && !Thread.currentThread().isInterrupted()){
+                    long start = System.nanoTime();
+                    canvas.update();
+                    long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+                    try {
+                        Thread.sleep(Math.max(canvas.getFrameTime() - elapsed, 1));
+                    } catch (InterruptedException e) {
+                        System.out.println("GUI Updater Interrupted");
+                        break;
+                    }
                 }
+            } finally {
+                canvas.releaseFrames();
             }
         });
 
@@ -120,13 +87,41 @@ public class CasinoGUI {
 
     public boolean isGUIAlive() { return guiAlive; }
 
-    public void stopGUI() {
+    @Override
+    public void stop() {
         guiAlive = false;
-        guiUpdater.interrupt();
+        //The window may be detached without ever being started
+        if (guiUpdater != null) guiUpdater.interrupt();
         frame.dispose();
     }
 
+    /**
+     * Draws the agents between the last two frames that changed, so they walk
+     * smoothly however long the simulation's steps are. The picture lags one
+     * step behind the simulation. Frames are only drawn while something moves,
+     * and less often when drawing takes too long.
+     */
     private class CasinoCanvas extends Canvas{
+        private transient VolatileImage background;
+        private long fpsWindowStart = System.nanoTime();
+        private int framesInWindow = 0;
+
+        //The two frames drawn between, both held until a newer one changes
+        private transient FrameSnapshot from, to;
+        private long toArrival;
+        private long stepTime;
+        private boolean settled = false;
+        private volatile boolean damaged = true;
+
+        private long frameTime = MIN_FRAME_TIME;
+        private double drawTime = 0;
+
+        /**
+         * @param walkTick the casino's time between two steps of a walk, the first guess of the step time, in ms
+         */
+        CasinoCanvas(long walkTick) {
+            this.stepTime = walkTick * 1_000_000;
+        }
 
         public void update(){
             BufferStrategy bufferStrategy = getBufferStrategy();
@@ -135,49 +130,125 @@ public class CasinoGUI {
                 return;
             }
 
+            boolean stepped = takeLatestFrame();
+            if (settled && !stepped && !damaged && !bufferStrategy.contentsLost()) return;
+            damaged = false;
+
+            long start = System.nanoTime();
+            float alpha = Math.min((start - toArrival) / (float) stepTime, 1f);
             Graphics g = bufferStrategy.getDrawGraphics();
 
             try {
-                g.setColor(Color.BLACK);
-                g.fillRect(0, 0, this.getWidth(), this.getHeight());
-
-                //painting the locations
-                //LOBBY
-                if (lobbyImage == null) {
-                    g.setColor(new Color(200, 200, 100));
-                    g.fillRect(LOBBY_RECT.x, LOBBY_RECT.y, LOBBY_RECT.width, LOBBY_RECT.height);
-                } else {
-                    g.drawImage(lobbyImage, LOBBY_RECT.x, LOBBY_RECT.y, LOBBY_RECT.width, LOBBY_RECT.height, null);
-                }
+                drawBackground(g);
+                scene.drawAgents(g, from, to, alpha);
+            } finally {
+                g.dispose();
+            }
 
-                //CASHIER AREA
-                if (cashierImage == null) {
-                    g.setColor(new Color(100, 200, 100));
-                    g.fillRect(CASHIER_RECT.x, CASHIER_RECT.y, CASHIER_RECT.width, CASHIER_RECT.height);
-                } else {
-                    g.drawImage(cashierImage, CASHIER_RECT.x, CASHIER_RECT.y, CASHIER_RECT.width, CASHIER_RECT.height, null);
-                }
+            bufferStrategy.show();
+            settled = alpha >= 1f;
+            adaptFrameTime(System.nanoTime() - start);
+            countFrame();
+        }
+
+        /**
+         * Moves on to the latest frame if the casino changed since the last one
+         *
+         * @return true if there is a new step to draw
+         */
+        private boolean takeLatestFrame() {
+            FrameSnapshot latest = frames.acquire();
+            if (to == null) {
+                from = latest;
+                to = frames.acquire();
+                toArrival = System.nanoTime();
+                scene.update(to);
+                return true;
+            }
+            if (latest.getVersion() == to.getVersion()) {
+                latest.release();
+                return false;
+            }
+
+            long now = System.nanoTime();
+            //The step time follows the simulation, it is what each step is stretched over
+            long step = Math.max(Math.min(now - toArrival, MAX_STEP_TIME * 1_000_000), MIN_FRAME_TIME * 1_000_000);
+            stepTime = (stepTime * 3 + step) / 4;
+            from.release();
+            from = to;
+            to = latest;
+            toArrival = now;
+            scene.update(to);
+            return true;
+        }
+
+        /**
+         * Doubles the time between frames while drawing takes more than half
+         * of it, and halves it again once drawing takes less than a quarter
+         */
+        private void adaptFrameTime(long elapsed) {
+            drawTime = drawTime * 0.9 + elapsed / 1_000_000.0 * 0.1;
+            if (drawTime > frameTime / 2.0) frameTime = Math.min(frameTime * 2, MAX_FRAME_TIME);
+            else if (drawTime < frameTime / 4.0) frameTime = Math.max(frameTime / 2, MIN_FRAME_TIME);
+        }
 
-                //GAME AREA
-                if (gameImage == null) {
-                    g.setColor(new Color(100, 100, 200));
-                    g.fillRect(GAME_RECT.x, GAME_RECT.y, GAME_RECT.width, GAME_RECT.height);
-                } else {
-                    g.drawImage(gameImage, GAME_RECT.x, GAME_RECT.y, GAME_RECT.width, GAME_RECT.height, null);
+        public long getFrameTime() {
+            return frameTime;
+        }
+
+        public void releaseFrames() {
+            if (from != null) from.release();
+            if (to != null) to.release();
+            from = to = null;
+        }
+
+        /**
+         * Copies the floor, composited once into video memory, instead of
+         * scaling the three area images again on every frame. The floor is
+         * only painted again when the video memory was lost.
+         */
+        private void drawBackground(Graphics g) {
+            do {
+                if (background == null || background.getWidth() != getWidth() || background.getHeight() != getHeight()
+                        || background.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    background = createVolatileImage(getWidth(), getHeight());
+                    paintFloor(background);
+                } else if (background.contentsLost()) {
+                    paintFloor(background);
                 }
+                g.drawImage(background, 0, 0, null);
+            } while (background.contentsLost());
+        }
+
+        private void paintFloor(VolatileImage target) {
+            Graphics2D g = target.createGraphics();
 
-                agents.forEach(agent -> {
-                    if(agent.getState() != Thread.State.TERMINATED) agent.draw(g);
-                });
+            try {
+                scene.paintFloor(g);
             } finally {
                 g.dispose();
             }
+        }
 
-            bufferStrategy.show();
+        /**
+         * Shows the frames drawn in the last second in the title, the updater
+         * aims at one frame every 16 ms, about 60 FPS, while something moves
+         */
+        private void countFrame() {
+            framesInWindow++;
+            long now = System.nanoTime();
+            if (now - fpsWindowStart < 1_000_000_000L) return;
+
+            int fps = (int) (framesInWindow * 1_000_000_000L / (now - fpsWindowStart));
+            SwingUtilities.invokeLater(() -> frame.setTitle("CASINO SIMULATOR - " + fps + " FPS"));
+            fpsWindowStart = now;
+            framesInWindow = 0;
         }
 
         @Override
-        public void paint(Graphics g) {}
+        public void paint(Graphics g) {
+            //The window was uncovered, draw it again even if nothing moved
+            damaged = true;
+        }
     }
 }
-
@@ -12,6 +12,10 @@ import javax.swing.border.Border;
  * Users can specify the number of players, cashiers, slots, croupiers, and simulation duration.
  */
 public class ClientGUI extends JFrame {
+    //Simulation speeds the user can choose from
+    static final String[] TIME_SCALE_LABELS = {"1x", "10x", "100x", "Máx."};
+    static final int[] TIME_SCALES = {1, 10, 100, Client.MAX_TIME_SCALE};
+
     private JSpinner playersSpinner;
     private JSpinner cashiersSpinner;
     private JSpinner slotsSpinner;
@@ -19,6 +23,7 @@ public class ClientGUI extends JFrame {
 
     private JSpinner croupierCapacity;
     private JSpinner durationSpinner;
+    private JComboBox<String> timeScaleBox;
     private JButton sendButton;
 
     /**
@@ -107,7 +112,7 @@ public class ClientGUI extends JFrame {
         add(topSection, gbc);
 
         JPanel form = new JPanel();
-        form.setLayout(new GridLayout(6, 2, 10, 10));
+        form.setLayout(new GridLayout(7, 2, 10, 10));
 
         playersSpinner = createSpinner(8, 1, 30, 1);
         cashiersSpinner = createSpinner(4, 1, 4, 1);
@@ -115,6 +120,7 @@ public class ClientGUI extends JFrame {
         croupiersSpinner = createSpinner(1, 1, 4, 1);
         croupierCapacity = createSpinner(5,2, 5, 1);
         durationSpinner = createSpinner(1, 1, 60, 1);
+        timeScaleBox = new JComboBox<>(TIME_SCALE_LABELS);
 
         Random random = new Random();
 
@@ -130,6 +136,8 @@ public class ClientGUI extends JFrame {
         lbl5.setFont(Fonts.TEXT_FONT);
         JLabel lbl6 = new JLabel("Duración (min): ");
         lbl5.setFont(Fonts.TEXT_FONT);
+        JLabel lbl7 = new JLabel("Velocidad: ");
+        lbl7.setFont(Fonts.TEXT_FONT);
 
 
         form.add(lbl1);
@@ -144,6 +152,8 @@ public class ClientGUI extends JFrame {
         form.add(croupierCapacity);
         form.add(lbl6);
         form.add(durationSpinner);
+        form.add(lbl7);
+        form.add(timeScaleBox);
 
         this.getContentPane().add(form, gbc);
 
@@ -186,10 +196,11 @@ public class ClientGUI extends JFrame {
         int croupiers = (int) croupiersSpinner.getValue();
         int croupierSize = (int) croupierCapacity.getValue();
         int duration = (int) durationSpinner.getValue();
+        int timeScale = TIME_SCALES[timeScaleBox.getSelectedIndex()];
 
         try {
             dispose();
-            Client.sendCasinoConfiguration(players, cashiers, slots, croupiers, croupierSize, duration);
+            Client.sendCasinoConfiguration(players, cashiers, slots, croupiers, croupierSize, duration, timeScale);
         } catch (Exception ex) {
             JOptionPane.showMessageDialog(this, "Error sending data: " + ex.getMessage());
         }
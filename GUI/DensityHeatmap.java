@@ -0,0 +1,92 @@
+package GUI;
+
+import Simulator.FrameSnapshot;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import static Simulator.CasinoFloor.*;
+
+/**
+ * Number of players in each cell of the casino floor, drawn as a heatmap when
+ * there are too many players to draw them one by one. The grid covers the
+ * lobby, the cashier area and the game area. It is updated with the players
+ * that changed cell between two frames, and drawing it only depends on the
+ * number of cells.
+ */
+class DensityHeatmap {
+    public static final int CELL_SIZE = 10;
+    //Players in a cell from which it is drawn with the hottest colour
+    private static final int SATURATION = 16;
+    private static final int OUTSIDE = -1;
+
+    private static final Rectangle[] AREAS = {FloorScene.bounds(LOBBY_RECT), FloorScene.bounds(CASHIER_RECT), FloorScene.bounds(GAME_RECT)};
+    private static final Rectangle FLOOR = AREAS[0].union(AREAS[1]).union(AREAS[2]);
+
+    private final int columns = FLOOR.width / CELL_SIZE;
+    private final int rows = FLOOR.height / CELL_SIZE;
+    private final int[] counts = new int[columns * rows];
+    private final int[] palette = new int[SATURATION + 1];
+    //One pixel per cell, scaled up when drawn
+    private final BufferedImage image = new BufferedImage(columns, rows, BufferedImage.TYPE_INT_ARGB);
+
+    private int[] cellOf = new int[0];
+    private int population = 0;
+
+    DensityHeatmap() {
+        for (int c = 1; c <= SATURATION; c++) {
+            float heat = (float) c / SATURATION;
+            Color color = Color.getHSBColor(0.66f * (1 - heat), 1f, 1f);
+            palette[c] = new Color(color.getRed(), color.getGreen(), color.getBlue(), 96 + (int) (144 * heat)).getRGB();
+        }
+    }
+
+    /**
+     * Moves the players that changed cell since the last frame
+     *
+     * @param frame the latest frame
+     */
+    void update(FrameSnapshot frame) {
+        if (cellOf.length != frame.getPlayerCount()) {
+            cellOf = new int[frame.getPlayerCount()];
+            Arrays.fill(cellOf, OUTSIDE);
+        }
+
+        for (int p = 0; p < cellOf.length; p++) {
+            int cell = frame.getState(p) == null ? OUTSIDE : cellAt(frame.getX(p), frame.getY(p));
+            int previous = cellOf[p];
+            if (cell == previous) continue;
+
+            if (previous != OUTSIDE) add(previous, -1);
+            else population++;
+            if (cell != OUTSIDE) add(cell, 1);
+            else population--;
+            cellOf[p] = cell;
+        }
+    }
+
+    private int cellAt(float x, float y) {
+        int px = (int) x, py = (int) y;
+        for (Rectangle area : AREAS) {
+            if (area.contains(px, py)) return ((py - FLOOR.y) / CELL_SIZE) * columns + (px - FLOOR.x) / CELL_SIZE;
+        }
+        return OUTSIDE;
+    }
+
+    private void add(int cell, int players) {
+        counts[cell] += players;
+        image.setRGB(cell % columns, cell / columns, palette[Math.min(counts[cell], SATURATION)]);
+    }
+
+    /**
+     * @return the players standing on the floor
+     */
+    int getPopulation() {
+        return population;
+    }
+
+    void draw(Graphics g) {
+        g.drawImage(image, FLOOR.x, FLOOR.y, columns * CELL_SIZE, rows * CELL_SIZE, null);
+    }
+}
@@ -0,0 +1,126 @@
+package GUI;
+
+import Agent.Agent;
+import Simulator.Casino;
+import Simulator.FrameSnapshot;
+import Utils.SpriteCache;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import static Simulator.CasinoFloor.*;
+
+/**
+ * The casino floor and its agents as drawn from the frames, shared by the
+ * window and the recordings. It only draws on the Graphics it is given, so
+ * it works without a display.
+ */
+class FloorScene {
+    public static final int WIDTH = 500;
+    public static final int HEIGHT = 400;
+
+    private final BufferedImage lobbyImage;
+    private final BufferedImage cashierImage;
+    private final BufferedImage gameImage;
+
+    private final DensityHeatmap heatmap = new DensityHeatmap();
+    private final int heatmapThreshold;
+
+    /**
+     * @param heatmapThreshold the players on the floor from which their
+     *                         density is drawn instead of each player
+     */
+    FloorScene(Casino casino, int heatmapThreshold) {
+        this.heatmapThreshold = heatmapThreshold;
+
+        //Every asset is decoded in parallel, the agents' sprites only once per asset
+        File cashierAsset = new File("Assets/cashier-floor.jpg");
+        File gameAsset = new File("Assets/game-area.png");
+        File lobbyAsset = new File("Assets/lobby.png");
+        SpriteCache.preload(cashierAsset, gameAsset, lobbyAsset);
+        casino.getAgents().forEach(Agent::preloadImage);
+
+        cashierImage = SpriteCache.get(cashierAsset);
+        gameImage = SpriteCache.get(gameAsset);
+        lobbyImage = SpriteCache.get(lobbyAsset);
+    }
+
+    /**
+     * @return the bounds of an area of the floor, to draw it
+     */
+    static Rectangle bounds(Area area) {
+        return new Rectangle(area.x(), area.y(), area.width(), area.height());
+    }
+
+    /**
+     * Takes in a new frame that is going to be drawn
+     */
+    void update(FrameSnapshot frame) {
+        heatmap.update(frame);
+    }
+
+    /**
+     * Paints the three areas of the floor, it doesn't change during a run
+     */
+    void paintFloor(Graphics2D g) {
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+
+        //painting the locations
+        Rectangle lobby = bounds(LOBBY_RECT);
+        Rectangle cashier = bounds(CASHIER_RECT);
+        Rectangle game = bounds(GAME_RECT);
+        //LOBBY
+        if (lobbyImage == null) {
+            g.setColor(new Color(200, 200, 100));
+            g.fillRect(lobby.x, lobby.y, lobby.width, lobby.height);
+        } else {
+            g.drawImage(lobbyImage, lobby.x, lobby.y, lobby.width, lobby.height, null);
+        }
+
+        //CASHIER AREA
+        if (cashierImage == null) {
+            g.setColor(new Color(100, 200, 100));
+            g.fillRect(cashier.x, cashier.y, cashier.width, cashier.height);
+        } else {
+            g.drawImage(cashierImage, cashier.x, cashier.y, cashier.width, cashier.height, null);
+        }
+
+        //GAME AREA
+        if (gameImage == null) {
+            g.setColor(new Color(100, 100, 200));
+            g.fillRect(game.x, game.y, game.width, game.height);
+        } else {
+            g.drawImage(gameImage, game.x, game.y, game.width, game.height, null);
+        }
+    }
+
+    /**
+     * Draws the agents between two frames
+     *
+     * @param from  the older frame
+     * @param to    the newer frame, the last one given to update
+     * @param alpha how far between the frames, from 0 to 1
+     */
+    void drawAgents(Graphics g, FrameSnapshot from, FrameSnapshot to, float alpha) {
+        //Crowded floors are drawn by cell, the cost doesn't grow with the players
+        int first = 0;
+        if (heatmap.getPopulation() > heatmapThreshold) {
+            heatmap.draw(g);
+            first = to.getPlayerCount();
+        }
+
+        for (int a = first; a < to.size(); a++) {
+            if (to.getState(a) == null) continue;
+
+            float x = to.getX(a), y = to.getY(a);
+            if (from.getState(a) != null) {
+                x = from.getX(a) + (x - from.getX(a)) * alpha;
+                y = from.getY(a) + (y - from.getY(a)) * alpha;
+            }
+            to.getAgent(a).draw(g, to, a, x, y);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package GUI;
+
+import Simulator.Casino;
+import Simulator.CasinoView;
+import Simulator.FrameBuffer;
+import Simulator.FrameSnapshot;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records the casino floor to disk without a window, it works with
+ * java.awt.headless=true. The recorder waits for every published frame, and
+ * the video is timed on the simulation's clock: each video frame shows the
+ * casino as it was at its point of the simulated time. The video plays at
+ * the same speed whatever the time scale or the load, frames are repeated
+ * when the simulation moves more than one video frame at once, and dropped
+ * when it moves less.
+ * <p>
+ * Drawing and encoding are two stages on their own threads, joined by a
+ * small pool of images. A slow disk makes the drawing stage wait for a free
+ * image, the simulation never waits for either of them. The recording is
+ * finished when the recorder is detached from the casino.
+ * <p>
+ * Server and Main record the floor when started with
+ * -Dcasino.record=&lt;file.y4m or PNG directory&gt;. The video plays in real
+ * time by default, and a run on the virtual clock is fitted in about a minute
+ * of video, the closing of the casino comes after it.
+ * -Dcasino.record.speed=&lt;simulated seconds per video second&gt; sets the
+ * speed instead. Whatever the speed, a recording stops at MAX_FRAMES, ten
+ * minutes of video.
+ */
+public class FrameRecorder implements CasinoView {
+    /**
+     * How the frames are written
+     */
+    public enum Format {
+        /**
+         * A numbered PNG file per frame in the output directory
+         */
+        PNG,
+        /**
+         * A single YUV4MPEG2 file, raw 4:4:4 video most players and encoders read
+         */
+        Y4M
+    }
+
+    /**
+     * Output of the recording, a .y4m file or a directory of PNG files
+     */
+    public static final String RECORD_PROPERTY = "casino.record";
+    /**
+     * Simulated seconds per second of video, AUTO_SPEED by default
+     */
+    public static final String SPEED_PROPERTY = "casino.record.speed";
+    /**
+     * Real time for a casino on its clock, and AUTO_VIDEO_LENGTH of video for
+     * a run on the virtual clock, which can simulate a day in seconds
+     */
+    public static final double AUTO_SPEED = 0;
+
+    //Images being drawn or encoded at the same time
+    private static final int PIPELINE_DEPTH = 8;
+    //Rate of the video, about the rate the frames are published at
+    private static final int FRAME_RATE = (int) (1000 / FrameBuffer.FRAME_TIME);
+    //Video a run on the virtual clock is fitted in at AUTO_SPEED, in ms
+    private static final long AUTO_VIDEO_LENGTH = 60_000;
+    //Longest recording, ten minutes of video, the rest of the run isn't written
+    public static final long MAX_FRAMES = FRAME_RATE * 600L;
+
+    /**
+     * An image and the number of video frames it is shown for
+     */
+    private record Drawn(BufferedImage image, long copies) {}
+
+    private final Casino casino;
+    private final FrameBuffer frames;
+    private final FloorScene scene;
+    private final Path output;
+    private final Format format;
+    private final BufferedImage floor;
+
+    private final BlockingQueue<BufferedImage> free = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+    private final BlockingQueue<Drawn> drawn = new ArrayBlockingQueue<>(PIPELINE_DEPTH + 1);
+    //Tells the encoder there are no more frames
+    private static final Drawn END = new Drawn(null, 0);
+    private final double speed;
+    //Simulated time shown by each video frame, in ms, set when the recording starts
+    private double framePeriod;
+
+    private Thread drawer;
+    private Thread encoder;
+    private volatile boolean recording = false;
+    private long framesWritten = 0;
+
+    /**
+     * @param output the directory of the PNG files, or the video file
+     */
+    public FrameRecorder(Casino casino, Path output, Format format) {
+        this(casino, output, format, CasinoGUI.HEATMAP_THRESHOLD, AUTO_SPEED);
+    }
+
+    /**
+     * @param output           the directory of the PNG files, or the video file
+     * @param heatmapThreshold the players on the floor from which their
+     *                         density is recorded instead of each player
+     * @param speed            the simulated seconds shown by a second of
+     *                         video, or AUTO_SPEED
+     */
+    public FrameRecorder(Casino casino, Path output, Format format, int heatmapThreshold, double speed) {
+        if (!(speed >= 0)) throw new IllegalArgumentException("The recording speed can't be negative: " + speed);
+        this.speed = speed;
+        this.casino = casino;
+        this.frames = casino.getFrames();
+        this.scene = new FloorScene(casino, heatmapThreshold);
+        this.output = output;
+        this.format = format;
+
+        this.floor = new BufferedImage(FloorScene.WIDTH, FloorScene.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = floor.createGraphics();
+        try {
+            scene.paintFloor(g);
+        } finally {
+            g.dispose();
+        }
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            free.add(new BufferedImage(FloorScene.WIDTH, FloorScene.HEIGHT, BufferedImage.TYPE_INT_RGB));
+        }
+    }
+
+    /**
+     * Creates the recorder asked for with the casino.record system property,
+     * the format is taken from the extension of the output
+     *
+     * @return the recorder, or null if no recording was asked for
+     */
+    public static FrameRecorder fromSystemProperties(Casino casino) {
+        String output = System.getProperty(RECORD_PROPERTY);
+        if (output == null || output.isBlank()) return null;
+
+        Format format = output.toLowerCase().endsWith(".y4m") ? Format.Y4M : Format.PNG;
+        String speed = System.getProperty(SPEED_PROPERTY);
+        double parsed = speed == null ? AUTO_SPEED : Double.parseDouble(speed);
+        return new FrameRecorder(casino, Path.of(output), format, CasinoGUI.HEATMAP_THRESHOLD, parsed);
+    }
+
+    @Override
+    public void start() {
+        if (drawer != null) return;
+        recording = true;
+        //The casino has started the run by now, so its length is known
+        framePeriod = 1000.0 * getSpeed() / FRAME_RATE;
+
+        encoder = new Thread(this::encode);
+        encoder.setName("Frame Recorder Encoder");
+        encoder.start();
+
+        drawer = new Thread(this::draw);
+        drawer.setName("Frame Recorder");
+        drawer.start();
+    }
+
+    /**
+     * @return the simulated seconds per second of video: the given speed, or
+     * at AUTO_SPEED real time, or the speed that fits a run on the virtual
+     * clock in AUTO_VIDEO_LENGTH
+     */
+    private double getSpeed() {
+        if (speed != AUTO_SPEED) return speed;
+        return Math.max(1.0, casino.getSimulatedDuration() / (double) AUTO_VIDEO_LENGTH);
+    }
+
+    /**
+     * Draws the last frame, and waits until every frame is on disk
+     */
+    @Override
+    public void stop() {
+        //Never started, there is nothing to finish
+        if (drawer == null) return;
+
+        recording = false;
+        try {
+            drawer.join();
+            encoder.join();
+        } catch (InterruptedException e) {
+            System.out.println("Frame Recorder Interrupted");
+        }
+        drawer = null;
+        encoder = null;
+        System.out.println("Recorded " + framesWritten + " frames to " + output);
+    }
+
+    /**
+     * First stage, draws the published frames. The image of a frame is held
+     * until the next frame tells how many video frames it lasts.
+     */
+    private void draw() {
+        long sequence = -1, version = -1;
+        long start = -1, scheduled = 0;
+        BufferedImage pending = null;
+        try {
+            //One more pass after stopping, to take the frame published when the casino closed
+            for (boolean last = false; !last; ) {
+                last = !recording;
+                FrameSnapshot frame = frames.acquireAfter(sequence, FrameBuffer.FRAME_TIME * 4);
+                if (frame == null) continue;
+
+                try {
+                    sequence = frame.getSequence();
+                    if (start < 0) start = frame.getTime();
+
+                    //The held image is shown until this frame's point in the simulated time
+                    long due = (long) ((frame.getTime() - start) / framePeriod);
+                    if (pending != null && due > scheduled) {
+                        drawn.put(new Drawn(pending, due - scheduled));
+                        scheduled = due;
+                        pending = null;
+                    }
+
+                    if (pending == null || frame.getVersion() != version) {
+                        version = frame.getVersion();
+                        if (pending == null) pending = free.take();
+                        scene.update(frame);
+                        Graphics2D g = pending.createGraphics();
+                        try {
+                            g.drawImage(floor, 0, 0, null);
+                            scene.drawAgents(g, frame, frame, 1f);
+                        } finally {
+                            g.dispose();
+                        }
+                    }
+                } finally {
+                    frame.release();
+                }
+            }
+            if (pending != null) drawn.put(new Drawn(pending, 1));
+        } catch (InterruptedException e) {
+            System.out.println("Frame Recorder Interrupted");
+        } finally {
+            drawn.add(END);
+        }
+    }
+
+    /**
+     * Second stage, writes the drawn images and gives them back to the first one
+     */
+    private void encode() {
+        OutputStream video = null;
+        byte[] plane = new byte[FloorScene.WIDTH * FloorScene.HEIGHT];
+        boolean failed = false;
+
+        try {
+            if (format == Format.PNG) {
+                Files.createDirectories(output);
+            } else {
+                video = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16);
+                video.write(("YUV4MPEG2 W" + FloorScene.WIDTH + " H" + FloorScene.HEIGHT + " F" + FRAME_RATE
+                        + ":1 Ip A1:1 C444\n").getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (IOException e) {
+            System.out.println("Couldn't open the recording " + output + ": " + e.getMessage());
+            failed = true;
+        }
+
+        try {
+            Drawn image;
+            while ((image = drawn.take()) != END) {
+                long copies = Math.min(image.copies(), MAX_FRAMES - framesWritten);
+                //After a failure the frames are only given back, so the first stage never gets stuck
+                for (long copy = 0; copy < copies && !failed; copy++) {
+                    try {
+                        if (format == Format.PNG) {
+                            ImageIO.write(image.image(), "png", output.resolve(String.format("frame-%06d.png", framesWritten)).toFile());
+                        } else {
+                            writeFrame(video, image.image(), plane);
+                        }
+                        framesWritten++;
+                    } catch (IOException e) {
+                        System.out.println("Couldn't write the recording " + output + ": " + e.getMessage());
+                        failed = true;
+                    }
+                }
+                if (copies < image.copies() && !failed) {
+                    System.out.println("The recording " + output + " reached " + MAX_FRAMES + " frames, the rest isn't written");
+                    failed = true;
+                }
+                free.put(image.image());
+            }
+        } catch (InterruptedException e) {
+            System.out.println("Frame Recorder Encoder Interrupted");
+        } finally {
+            if (video != null) {
+                try {
+                    video.close();
+                } catch (IOException e) {
+                    System.out.println("Couldn't close the recording " + output + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes an RGB image as a full resolution Y, U and V plane, BT.601
+     */
+    private static void writeFrame(OutputStream video, BufferedImage image, byte[] plane) throws IOException {
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        video.write("FRAME\n".getBytes(StandardCharsets.US_ASCII));
+
+        for (int component = 0; component < 3; component++) {
+            for (int p = 0; p < pixels.length; p++) {
+                int r = (pixels[p] >> 16) & 0xFF, g = (pixels[p] >> 8) & 0xFF, b = pixels[p] & 0xFF;
+                plane[p] = (byte) switch (component) {
+                    case 0 -> ((66 * r + 129 * g + 25 * b + 128) >> 8) + 16;
+                    case 1 -> ((-38 * r - 74 * g + 112 * b + 128) >> 8) + 128;
+                    default -> ((112 * r - 94 * g - 18 * b + 128) >> 8) + 128;
+                };
+            }
+            video.write(plane);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package GUI;
+
+import Calc.Money;
+import Simulator.FrameBuffer;
+import Simulator.FrameSnapshot;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Virtual table of agents read from the casino's frames. No row is built
+ * ahead of time: the table holds one frame, and the cells are computed when
+ * the JTable paints them, so only the rows on screen cost anything.
+ * <p>
+ * Sorting and filtering work on an index of ints pointing into the frame.
+ * While the table shows every agent in name order that index is shared and
+ * a refresh only swaps the frame.
+ */
+//Swing models are never serialized
+@SuppressWarnings("serial")
+class FrameTableModel extends AbstractTableModel {
+    enum Column {
+        NUMBER("#"), NAME("Agente"), STATE("Estado"), BALANCE("Balance"), CHIPS("Fichas");
+
+        private final String title;
+
+        Column(String title) {
+            this.title = title;
+        }
+    }
+
+    private record Update(FrameSnapshot frame, int[] index, int size) {}
+
+    private final Column[] columns;
+    //Index in the frames of each agent, in name order
+    private final int[] agents;
+    private final int[] allAgents;
+
+    private volatile Column sortColumn = Column.NUMBER;
+    private volatile boolean descending = false;
+    private volatile String stateFilter;
+
+    //Shown by the table, only touched on the EDT
+    private FrameSnapshot frame;
+    private int[] index;
+    private int size;
+    //Update waiting for the EDT, guarded by this
+    private Update pending;
+
+    /**
+     * @param agents the index in the frames of each agent, in the order they are listed
+     */
+    FrameTableModel(FrameBuffer frames, int[] agents, Column... columns) {
+        this.columns = columns;
+        this.agents = agents;
+        this.allAgents = IndexSort.identity(agents.length);
+        this.frame = frames.acquire();
+        this.index = allAgents;
+        this.size = agents.length;
+    }
+
+    /**
+     * Sorts by the column, or reverses the order if it is already sorted by it.
+     * It takes effect on the next refresh.
+     */
+    void sortBy(int column) {
+        Column sort = columns[column];
+        descending = sort == sortColumn && !descending;
+        sortColumn = sort;
+    }
+
+    /**
+     * Only shows the agents in a state, it takes effect on the next refresh
+     *
+     * @param stateName the name of the state, or null to show every agent
+     */
+    void setStateFilter(String stateName) {
+        this.stateFilter = stateName;
+    }
+
+    /**
+     * Takes the latest frame and builds its index off the EDT, the EDT only
+     * swaps them in
+     */
+    void refresh(FrameBuffer frames) {
+        FrameSnapshot latest = frames.acquire();
+        String filter = stateFilter;
+        Column sort = sortColumn;
+        boolean reverse = descending;
+
+        int[] rows = allAgents;
+        int count = agents.length;
+        if (filter != null || sort != Column.NUMBER && sort != Column.NAME || reverse) {
+            rows = new int[agents.length];
+            count = 0;
+            for (int a = 0; a < agents.length; a++) {
+                if (filter == null || filter.equals(latest.getStateName(agents[a]))) rows[count++] = a;
+            }
+            if (sort == Column.STATE) {
+                IndexSort.sort(rows, count, (a, b) -> latest.getStateName(agents[a]).compareTo(latest.getStateName(agents[b])));
+            } else if (sort == Column.BALANCE) {
+                IndexSort.sort(rows, count, (a, b) -> Long.compare(latest.getBalance(agents[a]), latest.getBalance(agents[b])));
+            } else if (sort == Column.CHIPS) {
+                IndexSort.sort(rows, count, (a, b) -> Integer.compare(latest.getChips(agents[a]), latest.getChips(agents[b])));
+            }
+            if (reverse) {
+                for (int l = 0, r = count - 1; l < r; l++, r--) {
+                    int swap = rows[l];
+                    rows[l] = rows[r];
+                    rows[r] = swap;
+                }
+            }
+        }
+
+        boolean schedule;
+        synchronized (this) {
+            schedule = pending == null;
+            if (!schedule) pending.frame().release();
+            pending = new Update(latest, rows, count);
+        }
+        if (schedule) SwingUtilities.invokeLater(this::apply);
+    }
+
+    private void apply() {
+        Update update;
+        synchronized (this) {
+            update = pending;
+            pending = null;
+        }
+
+        frame.release();
+        frame = update.frame();
+        index = update.index();
+        boolean resized = size != update.size();
+        size = update.size();
+
+        //Only the rows on screen are painted again, whatever the range
+        if (resized) fireTableDataChanged();
+        else if (size > 0) fireTableRowsUpdated(0, size - 1);
+    }
+
+    @Override
+    public int getRowCount() {
+        return size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column].title;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int position = index[row];
+        int agent = agents[position];
+        return switch (columns[column]) {
+            case NUMBER -> position;
+            case NAME -> frame.getAgent(agent).getName();
+            case STATE -> frame.getStateName(agent);
+            case BALANCE -> "$" + Money.format(frame.getBalance(agent));
+            case CHIPS -> frame.getChips(agent);
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package GUI;
+
+/**
+ * Sorts arrays of row indexes instead of the rows themselves, so a table
+ * with a million rows is sorted without boxing or copying them
+ */
+final class IndexSort {
+    /**
+     * Compares two rows by their indexes
+     */
+    @FunctionalInterface
+    interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    private IndexSort() {}
+
+    /**
+     * @return the indexes from 0 to size - 1, in order
+     */
+    static int[] identity(int size) {
+        int[] index = new int[size];
+        for (int i = 0; i < size; i++) index[i] = i;
+        return index;
+    }
+
+    /**
+     * Sorts the indexes in place. The sort is stable, so rows that compare
+     * equal keep their previous order.
+     */
+    static void sort(int[] index, int size, IndexComparator comparator) {
+        int[] buffer = new int[size];
+        int[] from = index, to = buffer;
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int mid = Math.min(low + width, size), high = Math.min(low + 2 * width, size);
+                int l = low, r = mid;
+                for (int k = low; k < high; k++) {
+                    if (l < mid && (r >= high || comparator.compare(from[l], from[r]) <= 0)) to[k] = from[l++];
+                    else to[k] = from[r++];
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != index) System.arraycopy(from, 0, index, 0, size);
+    }
+}
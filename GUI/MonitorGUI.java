@@ -1,5 +1,7 @@
 package GUI;
 
+import Client.Client;
+
 import javax.swing.*;
 import java.awt.*;
 import javax.swing.table.DefaultTableModel;
@@ -13,6 +15,7 @@ public class MonitorGUI extends JFrame {
     private static MonitorGUI instance;
     private final JTable playerTable;
     private final JLabel finalBalanceLabel;
+    private final JLabel houseLabel;
     private JPanel mainContent;
     private JScrollPane agentSP; // Placeholder for the agent's content
     private JLabel tableTitle;
@@ -35,6 +38,8 @@ public class MonitorGUI extends JFrame {
         playerTable.setDefaultEditor(Object.class, null);
         finalBalanceLabel = new JLabel("Ganaste: $0.00");
         finalBalanceLabel.setFont(new Font("Arial", Font.BOLD, 24));
+        houseLabel = new JLabel("Casa: GGR $0.00  Hold 0.00%  Fichas 0");
+        houseLabel.setFont(new Font("Arial", Font.PLAIN, 16));
 
         // SideBar Initialization
         JPanel sideBar = new JPanel();
@@ -85,6 +90,22 @@ public class MonitorGUI extends JFrame {
         sidebarConstraints.weighty = 1.0;
         sideBar.add(titleSection, sidebarConstraints);
 
+        // Speed of the running simulation
+        JPanel timeScalePanel = new JPanel();
+        timeScalePanel.setLayout(new GridLayout(0, 1));
+        timeScalePanel.add(new JLabel("Velocidad"));
+
+        JComboBox<String> timeScaleBox = new JComboBox<>(ClientGUI.TIME_SCALE_LABELS);
+        for (int i = 0; i < ClientGUI.TIME_SCALES.length; i++) {
+            if (ClientGUI.TIME_SCALES[i] == Client.getTimeScale()) timeScaleBox.setSelectedIndex(i);
+        }
+        timeScaleBox.addActionListener(e -> Client.setTimeScale(ClientGUI.TIME_SCALES[timeScaleBox.getSelectedIndex()]));
+        timeScalePanel.add(timeScaleBox);
+
+        sidebarConstraints.gridy = 1;
+        sidebarConstraints.weighty = 1.0;
+        sideBar.add(timeScalePanel, sidebarConstraints);
+
         // Main Content Panel (without filter logic)
         mainContent = new JPanel();
         mainContent.setLayout(new BorderLayout());
@@ -95,7 +116,10 @@ public class MonitorGUI extends JFrame {
         mainContent.add(tableTitle, BorderLayout.NORTH);
         agentSP = new JScrollPane(playerTable);  // Use playerTable in JScrollPane
         mainContent.add(agentSP, BorderLayout.CENTER);
-        mainContent.add(finalBalanceLabel, BorderLayout.SOUTH);
+        JPanel totals = new JPanel(new GridLayout(2, 1));
+        totals.add(finalBalanceLabel);
+        totals.add(houseLabel);
+        mainContent.add(totals, BorderLayout.SOUTH);
 
         // Set up the frame layout
         setLayout(new BorderLayout());
@@ -129,6 +153,12 @@ public class MonitorGUI extends JFrame {
 
         for (String playerUpdate : playerUpdates) {
             String[] playerData = playerUpdate.split(", ");
+            if (playerData[0].equals("House")) {
+                houseLabel.setText("Casa: GGR $" + playerData[1].split(": ")[1]
+                        + "  Hold " + playerData[2].split(": ")[1] + "%"
+                        + "  Fichas " + playerData[3].split(": ")[1]);
+                continue;
+            }
             String player = playerData[0].split(": ")[1];
             String state = playerData[1].split(": ")[1];
             double balance = Double.parseDouble(playerData[2].split(": ")[1]);
@@ -2,21 +2,19 @@ package GUI;
 
 import Agent.Agent;
 import Simulator.*;
-import Utils.NetworkUtils;
 
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.PrintWriter;
-import java.net.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 
 enum FILTER_OPTION {
     ALL, PLAYERS, CASHIER, SLOT_MACHINES, CROUPIER, CONTADOR, THREADS
@@ -56,12 +54,15 @@ final class OptionButton extends JButton {
     }
 }
 
-public class MonitorView {
+public class MonitorView implements CasinoView {
+    //Time between two refreshes of the shown table, in ms
+    private static final long REFRESH_TIME = 250;
+
     private final JFrame frame;
 
     //filter Buttons
     private OptionButton[] optionButtons = new OptionButton[6];
-    private FILTER_OPTION filter = FILTER_OPTION.ALL;
+    private volatile FILTER_OPTION filter = FILTER_OPTION.ALL;
 
     //Main Components
     private JTable agentTable, playerTable, cashierTable, croupierTable, slotTable, threadTable, counterTable;
@@ -70,33 +71,42 @@ public class MonitorView {
     public JPanel headerContent;
     private JLabel tableTitle;
     private JLabel agentStates;
+    private JLabel houseFigures;
 
-    private final ArrayList<Player> players;
-    private final ArrayList<Agent> agents;
+    private final FrameBuffer frames;
     private final ArrayList<Croupier> croupiers;
     private final ArrayList<SlotMachine> slotMachines;
     private final ArrayList<Cashier> cashiers;
-    private ArrayList<Thread> threads;
-    private final int monitorPort;
+    private final FrameTableModel agentModel, playerModel;
+    private final ThreadTelemetryModel threadModel;
+    private final SnapshotTableModel cashierModel, croupierModel, slotModel, counterModel;
+    private final List<StateCounter<?>> stateCounters;
+    private Map<Enum<?>, Long> stateCount = new IdentityHashMap<>();
+    //Index in the frames of each row of the staff tables
+    private final int[] croupierRows, slotRows, cashierRows;
+    private JComboBox<String> stateFilter;
     private Thread monitor;
     private boolean monitorAlive = false;
-    private final boolean toggleThreads = false;
-    private Thread tcpThread;
-    private boolean tcpThreadAlive = false;
 
     public MonitorView(Casino casino) {
-        this.players = casino.getPlayers();
-        this.players.sort(Comparator.comparing(Player::getName));
-        this.agents = casino.getAgents();
-        this.agents.sort(Comparator.comparing(Agent::getName));
-        this.croupiers = casino.getCroupiers();
+        this.frames = casino.getFrames();
+        this.stateCounters = List.of(casino.getPlayerStates(), casino.getCashierStates(),
+                casino.getCroupierStates(), casino.getSlotMachineStates());
+        this.croupiers = new ArrayList<>(casino.getCroupiers());
         this.croupiers.sort(Comparator.comparing(Croupier::getName));
-        this.slotMachines = casino.getSlotMachines();
+        this.slotMachines = new ArrayList<>(casino.getSlotMachines());
         this.cashiers = new ArrayList<>(casino.getCashiers());
         this.cashiers.sort(Comparator.comparing(Cashier::getName));
-        this.threads = new ArrayList<>(Thread.getAllStackTraces().keySet());
-        this.threads.sort(Comparator.comparing(Thread::getName));
-        this.monitorPort = casino.getMonitorPort() + 5000;
+
+        //The players come first in the frames, only the staff is looked up
+        Map<Agent, Integer> frameIndex = new IdentityHashMap<>();
+        List<Agent> frameAgents = casino.getAgents();
+        int playerCount = casino.getPlayers().size();
+        for (int a = playerCount; a < frameAgents.size(); a++) frameIndex.put(frameAgents.get(a), a);
+        this.croupierRows = rowsOf(this.croupiers, frameIndex);
+        this.slotRows = rowsOf(this.slotMachines, frameIndex);
+        this.cashierRows = rowsOf(this.cashiers, frameIndex);
+        FrameSnapshot snapshot = frames.acquire();
 
         this.frame = new JFrame("Monitor General");
 
@@ -111,88 +121,88 @@ public class MonitorView {
         );
 
         //Agent Table
-        String[] colNames = {"#", "Agente", "Estado"};
-        Object[][] data = new Object[this.agents.size()][3];
-        for (int i = 0; i < this.agents.size(); i++) {
-            Agent agent = this.agents.get(i);
-            data[i][0] = i;
-            data[i][1] = agent.getName();
-            data[i][2] = agent.getAgentState();
-
-            System.out.println(agent.getName());
-        }
-        this.agentTable = new JTable(data, colNames);
+        int[] agentOrder = byName(frameAgents, 0, frameAgents.size());
+        this.agentModel = new FrameTableModel(frames, agentOrder,
+                FrameTableModel.Column.NUMBER, FrameTableModel.Column.NAME, FrameTableModel.Column.STATE);
+        this.agentTable = new JTable(agentModel);
+        sortOnHeaderClick(agentTable, agentModel);
         this.agentTable.setDefaultEditor(Object.class, null);
         this.agentTable.setAlignmentX(SwingConstants.CENTER);
         this.agentSP = new JScrollPane(agentTable);
         this.agentSP.setBorder(BorderFactory.createEmptyBorder());
 
         //Cashier Table
-        colNames = new String[]{"#", "Agente", "Estado", "Tamaño de Fila", "Fila de Cajero"};
-        data = new Object[this.cashiers.size()][5];
-        for (int i = 0; i < this.cashiers.size(); i++) {
-            Cashier agent = this.cashiers.get(i);
-            data[i][0] = i;
-            data[i][1] = agent.getName();
-            data[i][2] = agent.getAgentState();
-            data[i][3] = agent.getQueueSize();
-            data[i][4] = agent.getQueue().stream().map(Player::getName).collect(Collectors.joining(", "));
-        }
-        this.cashierTable = new JTable(data, colNames);
+        String[] colNames = {"#", "Agente", "Estado", "Tamaño de Fila", "Fila de Cajero"};
+        this.cashierModel = new SnapshotTableModel(colNames, this.cashiers.size(), snapshot, (frame, i, row) -> {
+            Cashier agent = cashiers.get(i);
+            row[0] = i;
+            row[1] = agent.getName();
+            row[2] = frame.getStateName(cashierRows[i]);
+            row[3] = agent.getQueueSize();
+            row[4] = agent.getQueueCopy().stream().map(Player::getName).collect(Collectors.joining(", "));
+        });
+        this.cashierTable = new JTable(cashierModel);
         this.cashierTable.setDefaultEditor(Object.class, null);
         this.cashierSP = new JScrollPane(cashierTable);
         this.cashierSP.setBorder(BorderFactory.createEmptyBorder());
 
         //Croupier Table
         colNames = new String[]{"#", "Agente", "Estado", "Tamaño de Mesa", "Jugadores"};
-        data = new Object[this.croupiers.size()][5];
-        for (int i = 0; i < this.croupiers.size(); i++) {
-            Croupier agent = this.croupiers.get(i);
-            data[i][0] = i;
-            data[i][1] = agent.getName();
-            data[i][2] = agent.getAgentState();
-            data[i][3] = agent.numPlayers();
-            data[i][4] = agent.getPlayers().stream().map(Player::getName).collect(Collectors.joining(", "));
-        }
-        this.croupierTable = new JTable(data, colNames);
+        this.croupierModel = new SnapshotTableModel(colNames, this.croupiers.size(), snapshot, (frame, i, row) -> {
+            Croupier agent = croupiers.get(i);
+            row[0] = i;
+            row[1] = agent.getName();
+            row[2] = frame.getStateName(croupierRows[i]);
+            row[3] = agent.numPlayers();
+            row[4] = agent.getPlayers().stream().map(Player::getName).collect(Collectors.joining(", "));
+        });
+        this.croupierTable = new JTable(croupierModel);
         this.croupierTable.setDefaultEditor(Object.class, null);
         this.croupierSP = new JScrollPane(croupierTable);
         this.croupierSP.setBorder(BorderFactory.createEmptyBorder());
 
         //SlotMachine Table
         colNames = new String[]{"#", "Agente", "Estado", "Jugador"};
-        data = new Object[this.slotMachines.size()][4];
-        for (int i = 0; i < this.slotMachines.size(); i++) {
-            SlotMachine agent = this.slotMachines.get(i);
-            data[i][0] = i;
-            data[i][1] = agent.getName();
-            data[i][2] = agent.getAgentState();
-            data[i][3] = agent.getPlayer() != null ? agent.getPlayer().getName() : "";
-        }
-        this.slotTable = new JTable(data, colNames);
+        this.slotModel = new SnapshotTableModel(colNames, this.slotMachines.size(), snapshot, (frame, i, row) -> {
+            SlotMachine agent = slotMachines.get(i);
+            Player player = agent.getPlayer();
+            row[0] = i;
+            row[1] = agent.getName();
+            row[2] = frame.getStateName(slotRows[i]);
+            row[3] = player != null ? player.getName() : "";
+        });
+        this.slotTable = new JTable(slotModel);
         this.slotTable.setDefaultEditor(Object.class, null);
         this.slotSP = new JScrollPane(slotTable);
         this.slotSP.setBorder(BorderFactory.createEmptyBorder());
 
         //Player Table
-        String[] playerColNames = {"#", "Agente", "Estado", "Balance", "Fichas"};
-        Object[][] playerData = new Object[this.players.size()][5];
-        for (int i = 0; i < this.players.size(); i++) {
-            Player player = this.players.get(i);
-            playerData[i][0] = i;
-            playerData[i][1] = player.getName();
-            playerData[i][2] = player.getAgentState();
-            playerData[i][3] = "$" + player.getBalance();
-            playerData[i][4] = player.getChips();
-        }
-        this.playerTable = new JTable(playerData, playerColNames);
+        this.playerModel = new FrameTableModel(frames, byName(frameAgents, 0, playerCount), FrameTableModel.Column.values());
+        this.playerTable = new JTable(playerModel);
+        sortOnHeaderClick(playerTable, playerModel);
         this.playerTable.setDefaultEditor(Object.class, null);
         this.playerSP = new JScrollPane(playerTable);
         this.playerSP.setBorder(BorderFactory.createEmptyBorder());
 
-        //Thread Table
-        colNames = new String[]{"#", "Nombre", "Estado"};
-        this.threadTable = new JTable(new DefaultTableModel(colNames, 0));
+        //Counter Table, a row per state of every kind of agent
+        ArrayList<Enum<?>> states = new ArrayList<>();
+        ArrayList<String> kinds = new ArrayList<>();
+        addStates(states, kinds, "Jugadores", PlayerState.values());
+        addStates(states, kinds, "Cajeros", CashierState.values());
+        addStates(states, kinds, "Croupiers", CroupierState.values());
+        addStates(states, kinds, "Máquinas Slot", SlotMachineSate.values());
+        countStates();
+        String[] counterColNames = {"Agente", "Estado", "Número de Agentes"};
+        this.counterModel = new SnapshotTableModel(counterColNames, states.size(), snapshot, (frame, i, row) -> {
+            row[0] = kinds.get(i);
+            row[1] = states.get(i);
+            row[2] = stateCount.getOrDefault(states.get(i), 0L);
+        });
+        snapshot.release();
+
+        //Thread Table, only the threads of the agents
+        this.threadModel = new ThreadTelemetryModel(frameAgents, agentOrder);
+        this.threadTable = new JTable(threadModel);
         this.threadTable.setDefaultEditor(Object.class, null);
         this.threadSP = new JScrollPane(threadTable);
         this.threadSP.setBorder(BorderFactory.createEmptyBorder());
@@ -200,6 +210,55 @@ public class MonitorView {
         initComponents();
     }
 
+    private static void addStates(ArrayList<Enum<?>> states, ArrayList<String> kinds, String kind, Enum<?>[] values) {
+        for (Enum<?> state : values) {
+            states.add(state);
+            kinds.add(kind);
+        }
+    }
+
+    /**
+     * Reads the casino's state counters, the cost only depends on the number
+     * of states and not on the number of agents
+     */
+    private void countStates() {
+        Map<Enum<?>, Long> count = new IdentityHashMap<>();
+        for (StateCounter<?> counter : stateCounters) count.putAll(counter.snapshot());
+        stateCount = count;
+    }
+
+    /**
+     * Sorts a range of the agents in the frames by name, without copying them
+     *
+     * @return the index in the frames of each agent in the range, in name order
+     */
+    private static int[] byName(List<Agent> frameAgents, int from, int to) {
+        int[] rows = IndexSort.identity(to - from);
+        for (int r = 0; r < rows.length; r++) rows[r] += from;
+        IndexSort.sort(rows, rows.length, (a, b) -> frameAgents.get(a).getName().compareTo(frameAgents.get(b).getName()));
+        return rows;
+    }
+
+    /**
+     * Sorts the table by a column when its header is clicked, or reverses it
+     * on a second click. The table is sorted on the next refresh.
+     */
+    private void sortOnHeaderClick(JTable table, FrameTableModel model) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.columnAtPoint(e.getPoint());
+                if (column >= 0) model.sortBy(table.convertColumnIndexToModel(column));
+            }
+        });
+    }
+
+    private static int[] rowsOf(List<? extends Agent> agents, Map<Agent, Integer> frameIndex) {
+        int[] rows = new int[agents.size()];
+        for (int i = 0; i < rows.length; i++) rows[i] = frameIndex.get(agents.get(i));
+        return rows;
+    }
+
     private void initComponents() {
         ImageIcon logo = new ImageIcon("Assets/LogoUP-dorado.jpg");
         frame.setIconImage(logo.getImage());
@@ -274,8 +333,7 @@ public class MonitorView {
         optionButtons[6] = new OptionButton("Contador", FILTER_OPTION.CONTADOR);
 
         // Create the counter table
-        String[] counterColNames = {"Agente", "Estado", "Número de Agentes"};
-        this.counterTable = new JTable(new DefaultTableModel(counterColNames, 0));
+        this.counterTable = new JTable(counterModel);
         this.counterSP = new JScrollPane(counterTable);
         this.counterSP.setBorder(BorderFactory.createEmptyBorder());
 
@@ -298,6 +356,7 @@ public class MonitorView {
                     mainContent.remove(counterSP);  // Remove counter scroll pane
 
                     this.agentStates.setVisible(true);
+                    this.stateFilter.setVisible(this.filter == FILTER_OPTION.PLAYERS);
                     switch (this.filter) {
                         case ALL -> {
                             mainContent.add(agentSP);
@@ -330,7 +389,7 @@ public class MonitorView {
                         }
                         case THREADS -> {
                             mainContent.add(threadSP);
-                            this.tableTitle.setText("TABLA DE HILOS");
+                            this.tableTitle.setText("TELEMETRÍA DE HILOS");
                             this.agentStates.setVisible(false);
                         }
                         case CONTADOR -> {
@@ -371,199 +430,56 @@ public class MonitorView {
         headerContent.add(this.tableTitle, BorderLayout.NORTH);
         headerContent.add(this.agentStates, BorderLayout.SOUTH);
 
+        houseFigures = new JLabel();
+        houseFigures.setFont(Fonts.STATES_FONT);
+        houseFigures.setHorizontalAlignment(SwingConstants.CENTER);
+        headerContent.add(this.houseFigures, BorderLayout.CENTER);
+
+        //Only the players in a state, the first option shows all of them
+        stateFilter = new JComboBox<>();
+        stateFilter.addItem("Todos");
+        for (PlayerState state : PlayerState.values()) stateFilter.addItem(state.name());
+        stateFilter.addItem("OUT");
+        stateFilter.setFont(Fonts.STATES_FONT);
+        stateFilter.setVisible(false);
+        stateFilter.addActionListener(e -> {
+            int selected = stateFilter.getSelectedIndex();
+            playerModel.setStateFilter(selected > 0 ? (String) stateFilter.getSelectedItem() : null);
+        });
+        headerContent.add(this.stateFilter, BorderLayout.EAST);
+
         mainContent.add(headerContent, BorderLayout.NORTH);
         mainContent.add(agentSP, BorderLayout.CENTER);
 
         frame.getContentPane().add(mainContent, BorderLayout.CENTER);
     }
 
-    private void updatePlayerTable() {
-        for (int p = 0; p < this.players.size(); p++) {
-            Player curr = players.get(p);
-            this.playerTable.setValueAt(curr.getAgentState(), p, 2);
-            this.playerTable.setValueAt("$" + curr.getBalance(), p, 3);
-            this.playerTable.setValueAt(curr.getChips(), p, 4);
-        }
-    }
-
-    private void updateAgentTable() {
-        for (int a = 0; a < this.agents.size(); a++) {
-            Agent curr = this.agents.get(a);
-            this.agentTable.setValueAt(curr.getAgentState(), a, 2);
-        }
-    }
-
-    private void updateCashierTable() {
-        for (int c = 0; c < this.cashiers.size(); c++) {
-            Cashier curr = this.cashiers.get(c);
-            this.cashierTable.setValueAt(curr.getAgentState(), c, 2);
-            this.cashierTable.setValueAt(curr.getQueueSize(), c, 3);
-            this.cashierTable.setValueAt(curr.getQueue().stream().map(Player::getName).collect(Collectors.joining(", ")), c, 4);
-        }
-    }
-
-    private void updateCroupierTable() {
-        for (int c = 0; c < this.croupiers.size(); c++) {
-            Croupier curr = this.croupiers.get(c);
-            this.croupierTable.setValueAt(curr.getAgentState(), c, 2);
-            this.croupierTable.setValueAt(curr.numPlayers(), c, 3);
-            this.croupierTable.setValueAt(curr.getPlayers().stream().map(Player::getName).collect(Collectors.joining(", ")), c, 4);
-        }
-    }
-
-    private void updateSlotTable() {
-        for (int s = 0; s < this.slotMachines.size(); s++) {
-            SlotMachine curr = this.slotMachines.get(s);
-            this.slotTable.setValueAt(curr.getAgentState(), s, 2);
-            this.slotTable.setValueAt(curr.getPlayer() != null ? curr.getPlayer().getName() : "", s, 3);
-        }
-    }
-
-    private void updateThreadTable() {
-        threads = new ArrayList<>(Thread.getAllStackTraces().keySet());
-        this.threads.sort(Comparator.comparing(Thread::getName));
-        DefaultTableModel model = (DefaultTableModel) threadTable.getModel();
-        model.setRowCount(0);
-
-        for (Thread t : threads) {
-            if (toggleThreads && t.getThreadGroup() == Thread.currentThread().getThreadGroup()) {
-                model.addRow(new Object[]{
-                        model.getRowCount(),
-                        t.getName(),
-                        t.getState().toString()
-                });
-            } else {
-                model.addRow(new Object[]{
-                        model.getRowCount(),
-                        t.getName(),
-                        t.getState().toString()
-                });
-            }
-        }
-    }
-
-    public void startTCPServer() {
-        System.out.println("Starting TCP Server... in port: " + monitorPort);
-        tcpThreadAlive = true;
-        tcpThread = new Thread(() -> {
-            InetAddress wifiAddress = null;
-            try {
-                wifiAddress = NetworkUtils.getAddress(0);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-
-            try (ServerSocket serverSocket = new ServerSocket(monitorPort, 50, wifiAddress);
-            ) {
-                System.out.println("TCP Server started on port 5000.");
-                while (tcpThreadAlive) {
-                    try (Socket clientSocket = serverSocket.accept();
-                         OutputStream outputStream = clientSocket.getOutputStream();
-                         PrintWriter writer = new PrintWriter(outputStream, true)) {
-
-                        System.out.println("Client connected.");
-                        while (tcpThreadAlive && !Thread.currentThread().isInterrupted()) {
-                            String currentState = getCurrentState();
-                            writer.println(currentState);
-                            Thread.sleep(1000);
-                        }
-                    } catch (Exception e) {
-                    }
-                }
-            } catch (Exception e) {
-                System.err.println("Error starting TCP Server: " + e.getMessage());
-            }
-        });
-
-        tcpThread.setName("TCP Monitor Server");
-        tcpThread.start();
-    }
-
-    public void stopTCPServer() {
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
-
-        tcpThreadAlive = false;
-        if (tcpThread != null) {
-            tcpThread.interrupt();
-        }
-    }
-
-
-    private String getCurrentState() {
-        StringBuilder state = new StringBuilder();
-        for (Player player : players) {
-            state.append(String.format("Player: %s, State: %s, Balance: %s, Chips: %s|",
-                    player.getName(), player.getAgentState(), player.getBalance(), player.getChips()));
-        }
-
-        return state.toString();
-    }
-
-    private void updateCounterTable() {
-        DefaultTableModel model = (DefaultTableModel) counterTable.getModel();
-        model.setRowCount(0);
-
-        // Count Players by state
-        Map<String, Long> playerStateCount = players.stream()
-                .collect(Collectors.groupingBy(
-                        Player::getAgentState,
-                        Collectors.counting()
-                ));
-        for (PlayerState state : PlayerState.values()) {
-            model.addRow(new Object[]{"Jugadores", state, playerStateCount.getOrDefault(state.name(), 0L)});
-        }
-
-        // Count Cashiers by state
-        Map<String, Long> cashierStateCount = cashiers.stream()
-                .collect(Collectors.groupingBy(
-                        Cashier::getAgentState,
-                        Collectors.counting()
-                ));
-        for (CashierState state : CashierState.values()) {
-            model.addRow(new Object[]{"Cajeros", state, cashierStateCount.getOrDefault(state.name(), 0L)});
-        }
-
-        // Count Croupiers by state
-        Map<String, Long> croupierStateCount = croupiers.stream()
-                .collect(Collectors.groupingBy(
-                        Croupier::getAgentState,
-                        Collectors.counting()
-                ));
-        for (CroupierState state : CroupierState.values()) {
-            model.addRow(new Object[]{"Croupiers", state, croupierStateCount.getOrDefault(state.name(), 0L)});
-        }
-
-        // Count Slot Machines by state
-        Map<String, Long> slotMachineStateCount = slotMachines.stream()
-                .collect(Collectors.groupingBy(
-                        SlotMachine::getAgentState,
-                        Collectors.counting()
-                ));
-        for (SlotMachineSate state : SlotMachineSate.values()) {
-            model.addRow(new Object[]{"Máquinas Slot", state, slotMachineStateCount.getOrDefault(state.name(), 0L)});
-        }
-    }
-
-    public void startMonitor() {
+    @Override
+    public void start() {
         monitorAlive = true;
-        startTCPServer();
         monitor = new Thread(() -> {
             while (isMonitorAlive() && !Thread.currentThread().isInterrupted()) {
                 try {
-                    Thread.sleep(1000);
-                    switch (this.filter) {
-                        case ALL -> updateAgentTable();
-                        case PLAYERS -> updatePlayerTable();
-                        case CASHIER -> updateCashierTable();
-                        case SLOT_MACHINES -> updateSlotTable();
-                        case CROUPIER -> updateCroupierTable();
-                        case THREADS -> updateThreadTable();
-                        case CONTADOR -> updateCounterTable();
-                        default -> throw new AssertionError();
+                    Thread.sleep(REFRESH_TIME);
+                    FrameSnapshot snapshot = frames.acquire();
+                    try {
+                        String house = snapshot.getHouse().toString();
+                        SwingUtilities.invokeLater(() -> houseFigures.setText(house));
+                        switch (this.filter) {
+                            case ALL -> agentModel.refresh(frames);
+                            case PLAYERS -> playerModel.refresh(frames);
+                            case CASHIER -> cashierModel.refresh(snapshot);
+                            case SLOT_MACHINES -> slotModel.refresh(snapshot);
+                            case CROUPIER -> croupierModel.refresh(snapshot);
+                            case THREADS -> threadModel.refresh();
+                            case CONTADOR -> {
+                                countStates();
+                                counterModel.refresh(snapshot);
+                            }
+                            default -> throw new AssertionError();
+                        }
+                    } finally {
+                        snapshot.release();
                     }
 
                 } catch (InterruptedException ie) {
@@ -582,10 +498,11 @@ public class MonitorView {
         return monitorAlive;
     }
 
-    public void stopMonitor() {
+    @Override
+    public void stop() {
         monitorAlive = false;
-        stopTCPServer();
-        monitor.interrupt();
+        //The view may be detached before the casino opened and started it
+        if (monitor != null) monitor.interrupt();
         frame.dispose();
     }
 }
\ No newline at end of file
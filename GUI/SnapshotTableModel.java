@@ -0,0 +1,112 @@
+package GUI;
+
+import Simulator.FrameSnapshot;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * Table with a fixed number of rows filled from the casino's frames. A
+ * refresh builds the new rows off the EDT, compares them with the shown
+ * ones, and hands the EDT a single update with the range of rows that
+ * changed. Refreshes arriving before the EDT applied the previous one are
+ * merged into it, so the table is repainted once however far behind it is.
+ */
+//Swing models are never serialized
+@SuppressWarnings("serial")
+class SnapshotTableModel extends AbstractTableModel {
+    /**
+     * Fills the values of a row from a frame
+     */
+    @FunctionalInterface
+    interface RowFiller {
+        void fill(FrameSnapshot frame, int row, Object[] values);
+    }
+
+    private record Update(Object[][] rows, int first, int last) {}
+
+    private final String[] columns;
+    private final RowFiller filler;
+    //Rows shown by the table, a row is never changed once it was published
+    private volatile Object[][] rows;
+    //Update waiting for the EDT, guarded by this
+    private Update pending;
+
+    /**
+     * @param frame the frame the table starts with
+     */
+    SnapshotTableModel(String[] columns, int rowCount, FrameSnapshot frame, RowFiller filler) {
+        this.columns = columns;
+        this.filler = filler;
+        this.rows = new Object[rowCount][];
+        for (int r = 0; r < rowCount; r++) {
+            rows[r] = new Object[columns.length];
+            filler.fill(frame, r, rows[r]);
+        }
+    }
+
+    /**
+     * Compares the rows with a newer frame, it is called off the EDT
+     */
+    void refresh(FrameSnapshot frame) {
+        Object[][] shown;
+        synchronized (this) {
+            shown = pending != null ? pending.rows() : rows;
+        }
+
+        Object[][] next = shown.clone();
+        Object[] values = new Object[columns.length];
+        int first = -1, last = -1;
+        for (int r = 0; r < next.length; r++) {
+            filler.fill(frame, r, values);
+            if (Arrays.equals(values, shown[r])) continue;
+
+            next[r] = values.clone();
+            if (first < 0) first = r;
+            last = r;
+        }
+        if (first < 0) return;
+
+        boolean schedule;
+        synchronized (this) {
+            schedule = pending == null;
+            if (!schedule) {
+                first = Math.min(first, pending.first());
+                last = Math.max(last, pending.last());
+            }
+            pending = new Update(next, first, last);
+        }
+        if (schedule) SwingUtilities.invokeLater(this::apply);
+    }
+
+    private void apply() {
+        Update update;
+        synchronized (this) {
+            update = pending;
+            pending = null;
+        }
+        rows = update.rows();
+        fireTableRowsUpdated(update.first(), update.last());
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return rows[row][column];
+    }
+}
@@ -0,0 +1,150 @@
+package GUI;
+
+import Agent.Agent;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Telemetry of the threads running the casino's agents, read from the
+ * ThreadMXBean. Only these threads are sampled, and without their stacks, so
+ * a sample never stops the JVM to walk every thread like
+ * Thread.getAllStackTraces does. Each refresh samples the next SAMPLE_BATCH
+ * agents, and the rest keep their last sample until their turn comes.
+ * <p>
+ * Agents on virtual threads, or not started, have no figures in the
+ * ThreadMXBean, only their state is shown.
+ */
+//Swing models are never serialized
+@SuppressWarnings("serial")
+class ThreadTelemetryModel extends AbstractTableModel {
+    //Agents sampled on each refresh
+    static final int SAMPLE_BATCH = 512;
+    private static final String[] COLUMNS = {"#", "Hilo", "Estado", "CPU (ms)", "Bloqueos", "Esperas", "Memoria (KB)"};
+
+    private record Sample(int from, Thread.State[] states, long[] cpuTime, long[] blocked, long[] waited,
+                          long[] allocated) {}
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    //The HotSpot extension reads a whole batch in one call, and the allocated bytes, null if missing
+    private final com.sun.management.ThreadMXBean hotspot;
+    private final List<Agent> agents;
+    private final int[] order;
+    //Next agent to be sampled, only touched by the refreshing thread
+    private int next = 0;
+
+    //Last sample of each row, only touched on the EDT
+    private final Thread.State[] states;
+    private final long[] cpuTime, blocked, waited, allocated;
+
+    /**
+     * @param agents the casino's agents
+     * @param order  the index of the agent on each row
+     */
+    ThreadTelemetryModel(List<Agent> agents, int[] order) {
+        this.agents = agents;
+        this.order = order;
+        this.states = new Thread.State[order.length];
+        this.cpuTime = new long[order.length];
+        this.blocked = new long[order.length];
+        this.waited = new long[order.length];
+        this.allocated = new long[order.length];
+        Arrays.fill(cpuTime, -1);
+        Arrays.fill(blocked, -1);
+        Arrays.fill(waited, -1);
+        Arrays.fill(allocated, -1);
+
+        if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        this.hotspot = threads instanceof com.sun.management.ThreadMXBean bean ? bean : null;
+        if (hotspot != null && hotspot.isThreadAllocatedMemorySupported() && !hotspot.isThreadAllocatedMemoryEnabled()) {
+            hotspot.setThreadAllocatedMemoryEnabled(true);
+        }
+    }
+
+    /**
+     * Samples the next batch of agents, it is called off the EDT
+     */
+    void refresh() {
+        if (order.length == 0) return;
+        int from = next;
+        int count = Math.min(SAMPLE_BATCH, order.length - from);
+        next = from + count == order.length ? 0 : from + count;
+
+        Thread[] workers = new Thread[count];
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            workers[i] = agents.get(order[from + i]).getWorker();
+            ids[i] = workers[i].threadId();
+        }
+
+        ThreadInfo[] infos = threads.getThreadInfo(ids, 0);
+        long[] cpu, bytes;
+        if (hotspot != null) {
+            cpu = hotspot.getThreadCpuTime(ids);
+            bytes = hotspot.getThreadAllocatedBytes(ids);
+        } else {
+            cpu = new long[count];
+            for (int i = 0; i < count; i++) cpu[i] = threads.getThreadCpuTime(ids[i]);
+            bytes = new long[count];
+            Arrays.fill(bytes, -1);
+        }
+
+        Thread.State[] sampledStates = new Thread.State[count];
+        long[] sampledBlocked = new long[count];
+        long[] sampledWaited = new long[count];
+        for (int i = 0; i < count; i++) {
+            ThreadInfo info = infos[i];
+            sampledStates[i] = info != null ? info.getThreadState() : workers[i].getState();
+            sampledBlocked[i] = info != null ? info.getBlockedCount() : -1;
+            sampledWaited[i] = info != null ? info.getWaitedCount() : -1;
+        }
+
+        Sample sample = new Sample(from, sampledStates, cpu, sampledBlocked, sampledWaited, bytes);
+        SwingUtilities.invokeLater(() -> apply(sample));
+    }
+
+    private void apply(Sample sample) {
+        int from = sample.from(), count = sample.states().length;
+        System.arraycopy(sample.states(), 0, states, from, count);
+        System.arraycopy(sample.cpuTime(), 0, cpuTime, from, count);
+        System.arraycopy(sample.blocked(), 0, blocked, from, count);
+        System.arraycopy(sample.waited(), 0, waited, from, count);
+        System.arraycopy(sample.allocated(), 0, allocated, from, count);
+        fireTableRowsUpdated(from, from + count - 1);
+    }
+
+    @Override
+    public int getRowCount() {
+        return order.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return switch (column) {
+            case 0 -> row;
+            case 1 -> agents.get(order[row]).getName();
+            case 2 -> states[row] != null ? states[row].toString() : "";
+            case 3 -> cpuTime[row] < 0 ? "-" : cpuTime[row] / 1_000_000;
+            case 4 -> blocked[row] < 0 ? "-" : blocked[row];
+            case 5 -> waited[row] < 0 ? "-" : waited[row];
+            default -> allocated[row] < 0 ? "-" : allocated[row] / 1024;
+        };
+    }
+}
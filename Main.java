@@ -1,20 +1,30 @@
 import Agent.Agent;
+import GUI.CasinoGUI;
 import GUI.ClientGUI;
+import GUI.FrameRecorder;
+import GUI.MonitorView;
 import Simulator.Casino;
+import Simulator.MonitorServer;
 
 public class Main {
     public static void main(String[] args) {
         new ClientGUI();
         
         Casino casino = new Casino(40, 3, 3, 3, 3,5000);
+        casino.attach(new CasinoGUI(casino));
+        casino.attach(new MonitorView(casino));
+        casino.attach(new MonitorServer(casino));
+        FrameRecorder recorder = FrameRecorder.fromSystemProperties(casino);
+        if (recorder != null) casino.attach(recorder);
 
         casino.open();
 
         try {
-            Thread.sleep(60000);
+            casino.getClock().sleep(60000);
             casino.close();
         } catch (InterruptedException ex) {
         }
+        if (recorder != null) casino.detach(recorder);
         try {
             Thread.sleep(10000);
             System.out.println(Thread.activeCount());
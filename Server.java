@@ -1,6 +1,13 @@
+import GUI.CasinoGUI;
+import GUI.FrameRecorder;
+import GUI.MonitorView;
 import Simulator.Casino;
+import Simulator.MonitorServer;
+import Simulator.SimulationClock;
 import Utils.NetworkUtils;
 
+import java.awt.GraphicsEnvironment;
+
 import java.io.*;
 import java.net.*;
 
@@ -9,6 +16,11 @@ import java.net.*;
  */
 public class Server implements Runnable {
 
+    /**
+     * Time scale sent by the client to run the simulation as fast as possible
+     */
+    private static final byte MAX_TIME_SCALE = 0;
+
     private final ServerSocket serverSocket;
     private final String hostAddress;
     private volatile ServerState state;  // Tracks the current state of the server
@@ -51,6 +63,7 @@ public class Server implements Runnable {
 
     /**
      * Processes client messages by receiving casino details and simulating the casino operation.
+     * Once the simulation is running, the client can keep sending time scales to speed it up or slow it down.
      *
      * @param in  the input stream to receive data from the client
      * @param out the output stream to send responses to the client
@@ -59,26 +72,51 @@ public class Server implements Runnable {
     private void processClientMessages(DataInputStream in, DataOutputStream out) throws IOException {
         Casino casino = receiveCasinoDetails(in);
 
-        System.out.println("Launching casino GUI...");
-        casino.open();  // Open the casino
+        // Views are only attached when there is a display to show them on
+        if (!GraphicsEnvironment.isHeadless()) {
+            System.out.println("Launching casino GUI...");
+            casino.attach(new CasinoGUI(casino));
+            casino.attach(new MonitorView(casino));
+        }
+        casino.attach(new MonitorServer(casino));
+        // Records the floor when started with -Dcasino.record, and -Dcasino.record.speed, see FrameRecorder
+        FrameRecorder recorder = FrameRecorder.fromSystemProperties(casino);
+        if (recorder != null) casino.attach(recorder);
 
-        byte duration = in.readByte();  // The duration the casino will run (in seconds)
-        System.out.println("The casino will run for " + duration + " seconds.");
+        byte duration = in.readByte();  // The duration the casino will run (in minutes)
+        byte timeScale = in.readByte(); // How many times faster than real time it will run
+        System.out.println("The casino will run for " + duration + " minutes.");
 
         state = ServerState.RUN_SIMULATION;
-        new Thread(() -> runCasinoSimulation(casino, duration), "Server Run Simulation").start();
+        new Thread(() -> {
+            runCasinoSimulation(casino, duration, timeScale);
+            // Finishes the recording file
+            if (recorder != null) casino.detach(recorder);
+        }, "Server Run Simulation").start();
+
+        followTimeScale(in, casino);
     }
 
     /**
      * Simulates the casino operation for a given duration.
      *
      * @param casino the Casino object to be simulated
-     * @param duration the duration for which the casino will run, in seconds
+     * @param duration the duration for which the casino will run, in minutes
+     * @param timeScale how many times faster than real time the casino runs, or MAX_TIME_SCALE
      */
-    private void runCasinoSimulation(Casino casino, byte duration) {
+    private void runCasinoSimulation(Casino casino, byte duration, byte timeScale) {
+        if (timeScale == MAX_TIME_SCALE) {
+            System.out.println("Simulating casino for " + duration + " minutes on a virtual clock...");
+            casino.simulate(duration * 60000L);
+            state = ServerState.WAIT_FOR_CLIENT;  // Reset to wait for new client
+            return;
+        }
+
         try {
-            System.out.println("Simulating casino for " + duration + " seconds...");
-            Thread.sleep(duration * 60000);
+            casino.getClock().setTimeScale(timeScale);
+            casino.open();  // Open the casino
+            System.out.println("Simulating casino for " + duration + " minutes at " + timeScale + "x...");
+            casino.getClock().sleep(duration * 60000L);
         } catch (InterruptedException e) {
             e.printStackTrace();
         } finally {
@@ -88,6 +126,28 @@ public class Server implements Runnable {
         }
     }
 
+    /**
+     * Applies the time scales sent by the client while the casino runs, until
+     * the client disconnects.
+     *
+     * @param in the input stream to receive the time scales from
+     * @param casino the casino being simulated
+     * @throws IOException if an I/O error occurs while reading the time scales
+     */
+    private static void followTimeScale(DataInputStream in, Casino casino) throws IOException {
+        try {
+            while (true) {
+                byte timeScale = in.readByte();
+                if (casino.isEventDriven()) continue;  // Already running as fast as possible
+
+                casino.getClock().setTimeScale(timeScale == MAX_TIME_SCALE ? SimulationClock.MAX_SPEED : timeScale);
+                System.out.println("Time scale changed to " + casino.getClock().getTimeScale() + "x");
+            }
+        } catch (EOFException e) {
+            System.out.println("Client stopped sending time scales.");
+        }
+    }
+
     /**
      * Receives and parses casino details from the client.
      *
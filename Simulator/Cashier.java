@@ -3,93 +3,132 @@ package Simulator;
 import Agent.Agent;
 import Calc.Vector2D;
 
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import java.awt.*;
 import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Cashier extends Agent {
     //STATIC ATTRIBUTES
-    public static final float CHIP_PRICE = 1.5f;
+    /**
+     * Price of a chip, in cents
+     */
+    public static final long CHIP_PRICE = 150;
+    public static final long EXCHANGE_TIME = 3000;
 
     //PRIVATE ATTRIBUTES
-    private CashierState agentState;
-    private boolean busy;
+    //Null once the cashier is closed
+    private final AtomicReference<CashierState> agentState = new AtomicReference<>();
+    private volatile boolean busy;
     public Queue<Player> queue;
+    private final AtomicInteger queueSize = new AtomicInteger();
     private final Semaphore semaphore = new Semaphore(1);
+    private final HouseLedger.Account account;
 
     protected Cashier(String name, Casino casino, Vector2D position) {
         super(name, casino, new File("Assets/cashier.png"));
-        this.busy = false;
         this.queue = new LinkedList<>();
         this.pos = position;
-        this.agentState = CashierState.AVAILABLE;
+        this.account = casino.getLedger().openCashierAccount();
+        casino.getCashierStates().open(agentState, CashierState.AVAILABLE);
+    }
+    /**
+     * Changes the state of the cashier, the cashier is busy only while exchanging.
+     * The state is swapped atomically, players calling at the same time are
+     * each counted once, and a closed cashier stays closed.
+     * @param newState the new state of the cashier
+     */
+    private void changeState(CashierState newState) {
+        if (!casino.getCashierStates().change(agentState, newState)) return;
+        busy = newState == CashierState.EXCHANGING;
     }
+
     //========================== INTERACTIONS ==================================
     /**
-     * Charge to the player n chips and pays m money. If the player does not have
-     * enough chips, then it will return and do nothing.
-     * At the end the cashier change its state to AVAILABLE
+     * Charge to the player n chips. If the player does not have enough chips,
+     * then it will return false and do nothing, otherwise the player gets paid
+     * once the exchange is completed EXCHANGE_TIME ms later.
      * @param chips the amount of chips to be charged
      * @param player the agent the cashier is interacting with
+     * @return true if the exchange started
      */
-    public void exchange(int chips, Player player) throws InterruptedException{
-        this.busy = true;
-        agentState = CashierState.EXCHANGING;
-
-        try {
-            player.charge(chips);
-        } catch (Exception e) { //not enough chips
-            System.err.println(e.getMessage());
-            agentState = CashierState.AVAILABLE;
-            return;
+    public boolean exchange(int chips, Player player) {
+        changeState(CashierState.EXCHANGING);
+
+        if (!player.charge(chips)) { //not enough chips
+            changeState(CashierState.AVAILABLE);
+            return false;
         }
-        Thread.sleep(3000);
-        float money = chips * CHIP_PRICE;
+        return true;
+    }
+
+    /**
+     * Pays the player the money for the n chips charged by exchange(int, Player).
+     * At the end the cashier change its state to AVAILABLE
+     * @param chips the amount of chips that were charged
+     * @param player the agent the cashier is interacting with
+     */
+    public void completeExchange(int chips, Player player) {
+        long money = chips * CHIP_PRICE;
         player.pay(money);
+        account.pay(money);
 
-        removeFromQueue();
-        agentState = CashierState.AVAILABLE;
+        changeState(CashierState.AVAILABLE);
     }
 
     /**
-     * Charge to the player m money and pays n chips. If the player does not have
-     * enough funds, then it will return and do nothing.
-     * At the end the cashier change its state to AVAILABLE
-     * @param money the amount of money to be charged
+     * Charge to the player m money. If the player does not have enough funds,
+     * then it will return false and do nothing, otherwise the player gets paid
+     * once the exchange is completed EXCHANGE_TIME ms later.
+     * @param money the amount of money to be charged, in cents
      * @param player the agent the cashier is interacting with
+     * @return true if the exchange started
      */
-    public void exchange(float money, Player player) throws InterruptedException, UnsupportedAudioFileException, LineUnavailableException, IOException {
-        Casino.playSound("Sounds/Cashier-done.wav");
-        this.busy = true;
-        agentState = CashierState.EXCHANGING;
-
-        try {
-            player.charge(money);
-        } catch (Exception e) { //not enough funds
-            System.err.println(e.getMessage());
-
-            agentState = CashierState.AVAILABLE;
-            return;
+    public boolean exchange(long money, Player player) {
+        casino.playSound(SoundMixer.Sound.CASHIER);
+        changeState(CashierState.EXCHANGING);
+
+        if (!player.charge(money)) { //not enough funds
+            changeState(CashierState.AVAILABLE);
+            return false;
         }
+        return true;
+    }
 
+    /**
+     * Pays the player the chips for the m money charged by exchange(long, Player).
+     * At the end the cashier change its state to AVAILABLE
+     * @param money the amount of money that was charged, in cents
+     * @param player the agent the cashier is interacting with
+     */
+    public void completeExchange(long money, Player player) {
         int chips = (int) (money / CHIP_PRICE);
-
-        Thread.sleep(3000);
         player.pay(chips);
+        account.receive(chips * CHIP_PRICE);
 
-        removeFromQueue();
-        agentState = CashierState.AVAILABLE;
+        changeState(CashierState.AVAILABLE);
+    }
+
+    /**
+     * Frees the counter once the player is done with it, and wakes up the
+     * next player in the queue so it can come forward
+     * @param player the agent leaving the counter
+     */
+    public void release(Player player) {
+        removeFromQueue(player);
+        semaphore.release();
+
+        Player next = peekQueue();
+        if (next != null) next.wake();
     }
 
     public synchronized void assign(Player p){
-        this.busy = true;
-        agentState = CashierState.EXCHANGING;
+        changeState(CashierState.EXCHANGING);
         addToQueue(p);
     }
 
@@ -104,64 +143,71 @@ public class Cashier extends Agent {
     }
 
     public synchronized Queue<Player> getQueue() { return queue; }
-    public synchronized int getQueueSize() { return this.queue.size(); }
-    public synchronized void addToQueue(Player p) { this.queue.add(p); }
-    public synchronized void removeFromQueue() { this.queue.poll(); }
+    /**
+     * @return a copy of the queue, taken under the cashier's lock so it can
+     * be read while players join and leave it
+     */
+    public synchronized List<Player> getQueueCopy() { return new ArrayList<>(queue); }
+    public int getQueueSize() { return this.queueSize.get(); }
+    public synchronized void addToQueue(Player p) {
+        this.queue.add(p);
+        this.queueSize.incrementAndGet();
+    }
+    public synchronized void removeFromQueue(Player p) {
+        if (this.queue.remove(p)) this.queueSize.decrementAndGet();
+    }
+    public synchronized Player peekQueue() { return this.queue.peek(); }
 
     //OVERRIDE METHODS
     @Override
     public String getAgentState() {
-        if(!isAgentAlive()) return "CLOSED";
+        CashierState state = agentState.get();
+        if(!isAgentAlive() || state == null) return "CLOSED";
 
-        return switch (agentState) {
+        return switch (state) {
             case AVAILABLE -> "AVAILABLE";
             case EXCHANGING -> "EXCHANGING";
             case CLOSING -> "CLOSING";
         };
     }
+
     @Override
-    public void run(){
-        while(isAgentAlive() && !isInterrupted()) {
-            switch (agentState){
-                case AVAILABLE:
-                    this.busy = false;
-                    break;
-
-                case EXCHANGING:
-                    this.busy = true;
-                    break;
-
-                case CLOSING:
-                    break;
-
-                default:
-                    System.out.println("default case");
-            }
-//            System.out.println(getName() + " QUEUE SIZE: " + this.queue.size() + " Players: " + getQueue().stream().map(Player::getName).collect(Collectors.joining(", ")));
-        }
+    public Enum<?> getAgentStateValue() {
+        return isAgentAlive() ? agentState.get() : null;
+    }
+    /**
+     * The cashier has no work of its own, it only attends the players, so its
+     * thread stays parked until the cashier is closed
+     */
+    @Override
+    public long execute() {
+        return PARK;
     }
 
     @Override
     public void stopWork() {
-        this.agentState = CashierState.CLOSING;
+        changeState(CashierState.CLOSING);
         this.killAgent();
+        casino.getCashierStates().close(agentState);
     }
 
     @Override
     public void startWork() {
-        this.agentState = CashierState.AVAILABLE;
+        casino.getCashierStates().open(agentState, CashierState.AVAILABLE);
+        busy = false;
         this.startAgent();
     }
 
     @Override
-    public void draw(Graphics g) {
+    public void draw(Graphics g, FrameSnapshot frame, int index, float x, float y) {
+        Image image = getImage(32, 32);
         //g.setColor(isBusy() ? Color.RED : Color.GREEN);
         if (image == null) {
             g.setColor(Color.GRAY);
-            g.fillRect((int) this.pos.getX(), (int) this.pos.getY(), 25, 25);
+            g.fillRect((int) x, (int) y, 25, 25);
         }
         else {
-            g.drawImage(image, (int) this.pos.getX(), (int) this.pos.getY(), 32, 32, null);
+            g.drawImage(image, (int) x, (int) y, null);
         }
     }
 }
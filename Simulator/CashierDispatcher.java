@@ -0,0 +1,78 @@
+package Simulator;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns the players to the cashiers. The policies only read the cashiers'
+ * atomic queue sizes, so players dispatching at the same time never wait on
+ * each other.
+ */
+public class CashierDispatcher {
+    public enum Policy {
+        /** The cashier with the fewest players in its queue */
+        JOIN_SHORTEST_QUEUE,
+        /** The shortest queue out of two cashiers picked at random */
+        POWER_OF_TWO_CHOICES,
+        /** Every cashier in turn */
+        ROUND_ROBIN
+    }
+
+    private final Cashier[] cashiers;
+    private final AtomicInteger turn = new AtomicInteger();
+    private volatile Policy policy;
+
+    public CashierDispatcher(List<Cashier> cashiers, Policy policy) {
+        this.cashiers = cashiers.toArray(new Cashier[0]);
+        this.policy = policy;
+    }
+
+    /**
+     * Selects a cashier with the current policy and puts the player in its queue
+     *
+     * @param p the player looking for a cashier
+     * @return the cashier attending the player, or null if there are no cashiers
+     */
+    public Cashier dispatch(Player p) {
+        if (cashiers.length == 0) return null;
+
+        Cashier selected = switch (policy) {
+            case JOIN_SHORTEST_QUEUE -> shortestQueue();
+            case POWER_OF_TWO_CHOICES -> powerOfTwoChoices();
+            case ROUND_ROBIN -> cashiers[Math.floorMod(turn.getAndIncrement(), cashiers.length)];
+        };
+        selected.assign(p);
+        return selected;
+    }
+
+    private Cashier shortestQueue() {
+        Cashier shortest = cashiers[0];
+        int shortestSize = shortest.getQueueSize();
+
+        for (int c = 1; c < cashiers.length && shortestSize > 0; c++) {
+            int size = cashiers[c].getQueueSize();
+            if (size < shortestSize) {
+                shortest = cashiers[c];
+                shortestSize = size;
+            }
+        }
+        return shortest;
+    }
+
+    private Cashier powerOfTwoChoices() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Cashier first = cashiers[random.nextInt(cashiers.length)];
+        Cashier second = cashiers[random.nextInt(cashiers.length)];
+
+        return second.getQueueSize() < first.getQueueSize() ? second : first;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public void setPolicy(Policy policy) {
+        this.policy = policy;
+    }
+}
@@ -2,47 +2,75 @@ package Simulator;
 
 import Agent.Agent;
 import Calc.Vector2D;
-import GUI.CasinoGUI;
-import GUI.MonitorView;
 
-import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.locks.ReentrantLock;
-import javax.sound.sampled.*;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
 
 public class Casino {
     //Constants
     private final ArrayList<Player> players = new ArrayList<>();
-    private final PriorityBlockingQueue<Cashier> cashiers;
+    private final PlayerStore playerStore;
+    private final ArrayList<Cashier> cashiers = new ArrayList<>();
+    private final CashierDispatcher cashierDispatcher;
     private final ArrayList<SlotMachine> slotMachines = new ArrayList<>();
+    private final ConcurrentLinkedQueue<SlotMachine> freeSlotMachines = new ConcurrentLinkedQueue<>();
     private final ArrayList<Croupier> croupiers = new ArrayList<>();
+    private final List<Agent> agents;
+    private final FrameBuffer frames;
     private final int monitorPort;
     private boolean closed = true;
-    private final CasinoGUI gui;
-    private final MonitorView monitorView;
-
-    private final ReentrantLock croupierLock = new ReentrantLock();
+    private final List<CasinoView> views = new CopyOnWriteArrayList<>();
+    private final SimulationClock clock = new SimulationClock();
+    private final HouseLedger ledger = new HouseLedger();
+    private final StateCounter<PlayerState> playerStates = new StateCounter<>(PlayerState.class);
+    private final StateCounter<CashierState> cashierStates = new StateCounter<>(CashierState.class);
+    private final StateCounter<SlotMachineSate> slotMachineStates = new StateCounter<>(SlotMachineSate.class);
+    private final StateCounter<CroupierState> croupierStates = new StateCounter<>(CroupierState.class);
+    private SoundMixer sounds = SoundMixer.SILENT;
+    private long walkTick = Player.TICK;
+    private EventScheduler scheduler;
+    //Simulated time of the run on the virtual clock, 0 when the casino runs on its clock
+    private volatile long simulatedDuration = 0;
+    private Executor executor;
 
     public Casino(int players, int cashiers, int slotMachines, int croupiers, int buffer, int monitorPort) {
+        this(players, cashiers, slotMachines, croupiers, buffer, monitorPort, new HeapPlayerStore(players));
+    }
+
+    /**
+     * Creates a casino whose players keep their state in the given store, for
+     * example an OffHeapPlayerStore for runs with millions of players
+     *
+     * @param playerStore an empty store with room for all the players
+     */
+    public Casino(int players, int cashiers, int slotMachines, int croupiers, int buffer, int monitorPort,
+                  PlayerStore playerStore) {
 
         //Instantiate the players
+        this.playerStore = playerStore;
         for (int p = 1; p <= players; p++) {
             this.players.add(new Player("Player" + p, this));
         }
 
         //Instantiate the cashiers
-        this.cashiers = new PriorityBlockingQueue<>(cashiers, Comparator.comparingInt(Cashier::getQueueSize));
         for (int c = 1; c <= cashiers; c++) {
             this.cashiers.add(new Cashier("Cashier" + c, this, new Vector2D((c * 48) - 24, 352)));
         }
+        this.cashierDispatcher = new CashierDispatcher(this.cashiers, CashierDispatcher.Policy.JOIN_SHORTEST_QUEUE);
 
         //Intantiate the slotMachines
         for (int s = 1; s <= slotMachines; s++) {
             this.slotMachines.add(new SlotMachine("Slot Machine" + s, this, new Vector2D(192 + (s * 48), 320)));
         }
+        this.freeSlotMachines.addAll(this.slotMachines);
 
         //Instantiate the croupiers
         for (int c = 1; c <= croupiers; c++) {
@@ -52,16 +80,23 @@ public class Casino {
 
         this.monitorPort = monitorPort;
 
-        gui = new CasinoGUI(this);
-        monitorView = new MonitorView(this);
+        ArrayList<Agent> agents = new ArrayList<>(this.players);
+        agents.addAll(this.cashiers);
+        agents.addAll(this.slotMachines);
+        agents.addAll(this.croupiers);
+        this.agents = Collections.unmodifiableList(agents);
+        this.frames = new FrameBuffer(this);
     }
 
 
     //METHODS
     public void open() {
         this.closed = false;
+        this.simulatedDuration = 0;
         System.out.println("=== OPENING CASINO ===");
 
+        sounds = SoundMixer.open();
+
         cashiers.forEach(Cashier::startWork);
         System.out.println("Cashiers started");
 
@@ -76,8 +111,7 @@ public class Casino {
 
         System.out.println("=== CASINO OPEN TO BUSINESS ===");
 
-        monitorView.startMonitor();
-        gui.start();
+        startViews();
     }
 
     public void close() {
@@ -87,7 +121,7 @@ public class Casino {
         players.forEach(player -> {
 //            player.stopWork();
             try {
-                player.getWorker().join();
+                player.joinAgent();
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             }
@@ -97,8 +131,7 @@ public class Casino {
         cashiers.forEach(cashier -> {
             cashier.stopWork();
             try {
-                cashier.getWorker().join();
-                if (cashier.getWorker().isAlive()) cashier.getWorker().interrupt();
+                cashier.joinAgent();
                 System.out.println("Cashier died");
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
@@ -109,8 +142,7 @@ public class Casino {
         slotMachines.forEach(slotMachine -> {
             slotMachine.stopWork();
             try {
-                slotMachine.getWorker().join();
-                if (slotMachine.getWorker().isAlive()) slotMachine.getWorker().interrupt();
+                slotMachine.joinAgent();
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             }
@@ -120,82 +152,273 @@ public class Casino {
         croupiers.forEach(croupier -> {
             croupier.stopWork();
             try {
-                croupier.getWorker().join();
-                if (croupier.getWorker().isAlive()) croupier.getWorker().interrupt();
+                croupier.joinAgent();
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             }
         });
         System.out.println("Croupiers finished");
 
+        if (executor instanceof ExecutorService service) service.shutdown();
+        frames.stop();
+        sounds.close();
+
         System.out.println("=== CASINO CLOSED ===");
-//        gui.stopGUI();
-//        monitorView.stopTCPServer();
-//        monitorView.stopMonitor();
+//        views.forEach(this::detach);
     }
 
-    public Cashier findCashier(Player p) {
-        Cashier mostAvailable = null;
-
-        try {
-            mostAvailable = cashiers.take(); // Menos agentes --> seleccionado
-            mostAvailable.assign(p); // cashier le asigno el player p a la queue
-            cashiers.offer(mostAvailable); // Regreso Cashier a la Priory
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            System.out.println("Find Cashier interrupted: " + e.getMessage());
+    /**
+     * Attaches a view to the casino, it starts showing the casino right away
+     * if the casino is already open
+     *
+     * @param view the view to be attached
+     */
+    public void attach(CasinoView view) {
+        synchronized (views) {
+            views.add(view);
+            if (closed) return;
+            frames.start();
+        }
+        view.start();
+    }
+
+    /**
+     * Detaches a view from the casino and stops it
+     *
+     * @param view the view to be detached
+     */
+    public void detach(CasinoView view) {
+        synchronized (views) {
+            if (!views.remove(view)) return;
+            //Nobody reads the frames anymore
+            if (views.isEmpty()) frames.stop();
+        }
+        view.stop();
+    }
+
+    /**
+     * Starts the views, and the frames they read, only if there is any view
+     */
+    private void startViews() {
+        synchronized (views) {
+            if (!views.isEmpty()) frames.start();
+        }
+        views.forEach(CasinoView::start);
+    }
+
+    /**
+     * Runs a whole casino day on a virtual clock instead of the agents' threads.
+     * Every agent is stepped by a single EventScheduler, so the run takes as long
+     * as processing its events and not as long as the simulated time.
+     *
+     * @param duration the simulated time the casino stays open, in ms
+     */
+    public void simulate(long duration) {
+        this.scheduler = new EventScheduler();
+        this.simulatedDuration = duration;
+        this.closed = false;
+        System.out.println("=== OPENING CASINO (SIMULATED) ===");
+
+        cashiers.forEach(Cashier::startWork);
+        slotMachines.forEach(SlotMachine::startWork);
+        croupiers.forEach(Croupier::startWork);
+        players.forEach(Player::startWork);
+        startViews();
+
+        scheduler.runUntil(duration);
+
+        this.closed = true;
+        System.out.println("=== CLOSING CASINO (SIMULATED) ===");
+
+        //Players cash out their chips before leaving, give them at most another day to do it
+        long deadline = scheduler.now() + duration;
+        while (scheduler.now() < deadline && !scheduler.isIdle()
+                && players.stream().anyMatch(Agent::isAgentAlive)) {
+            scheduler.runUntil(Math.min(scheduler.now() + 60000, deadline));
         }
 
-        return mostAvailable;
+        long remaining = players.stream().filter(Agent::isAgentAlive).count();
+        players.forEach(Player::stopWork);
+        cashiers.forEach(Cashier::stopWork);
+        slotMachines.forEach(SlotMachine::stopWork);
+        croupiers.forEach(Croupier::stopWork);
+        scheduler.runUntil(scheduler.now() + 60000);
+        frames.stop();
+
+        System.out.println("=== CASINO CLOSED after " + scheduler.now() + " simulated ms, "
+                + remaining + " players still inside ===");
+    }
+
+    public Cashier findCashier(Player p) {
+        return cashierDispatcher.dispatch(p);
     }
 
+    /**
+     * Changes how the players are assigned to the cashiers, it can be changed
+     * while the casino is open
+     *
+     * @param policy the new dispatch policy
+     */
+    public void setCashierPolicy(CashierDispatcher.Policy policy) {
+        cashierDispatcher.setPolicy(policy);
+    }
+
+    /**
+     * Sits the player at the first table with a free seat. Every table
+     * reserves its own seats, so there is no lock shared by the tables.
+     *
+     * @param p the player looking for a table
+     * @return the croupier of the table, or null if every table is full or playing
+     */
     public Croupier findCroupier(Player p) {
-        croupierLock.lock();
-        Croupier availableCroupier = null;
-        try {
-            for (Croupier croupier : croupiers) {
-                if (croupier.isAvailable()) {
-                    if (croupier.addPlayer(p)) {
-                        availableCroupier = croupier;
-                        break;
-                    }
-                }
-            }
-        } finally {
-            croupierLock.unlock();
+        for (Croupier croupier : croupiers) {
+            if (croupier.isAvailable() && croupier.addPlayer(p)) return croupier;
         }
-        return availableCroupier;
+        return null;
     }
 
+    /**
+     * Claims a free slot machine for the player. Machines are taken from a
+     * lock-free queue, so each one is handed to a single player at a time.
+     *
+     * @param p the player looking for a machine
+     * @return the machine taken by the player, or null if all of them are taken
+     */
     public SlotMachine findSlotMachine(Player p) {
-        SlotMachine available = null;
-        for (SlotMachine slotMachine : slotMachines) {
-            if (slotMachine.isAvailable()) {
-                available = slotMachine;
-                slotMachine.takeMachine(p);
-                break;
-            }
-        }
+        SlotMachine available = freeSlotMachines.poll();
+        if (available != null) available.takeMachine(p);
         return available;
     }
 
+    /**
+     * Puts a slot machine back in the queue of free machines
+     *
+     * @param slotMachine the machine left by its player
+     */
+    void releaseSlotMachine(SlotMachine slotMachine) {
+        freeSlotMachines.offer(slotMachine);
+    }
+
     public boolean isClosed() {
         return this.closed;
     }
 
-    public ArrayList<Agent> getAgents() {
-        ArrayList<Agent> agents = new ArrayList<>(players);
-        agents.addAll(cashiers);
-        agents.addAll(slotMachines);
-        agents.addAll(croupiers);
-        return agents;
+    /**
+     * @return the current simulated time in ms, on whichever clock drives the agents
+     */
+    public long now() {
+        return isEventDriven() ? scheduler.now() : clock.now();
+    }
+
+    /**
+     * @return true when the agents are stepped by an EventScheduler instead of their own threads
+     */
+    public boolean isEventDriven() {
+        return this.scheduler != null;
+    }
+
+    public EventScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * @return the clock the agents sleep on when they run on their own threads
+     */
+    public SimulationClock getClock() {
+        return this.clock;
+    }
+
+    /**
+     * Runs the agents' bodies on the given executor instead of one platform
+     * thread per agent, it has to be set before opening the casino.
+     * <p>
+     * Every body runs for as long as the casino is open, so the executor must
+     * run one task per agent at the same time, like a virtual thread per task
+     * executor. A pool with fewer threads than agents would leave the rest
+     * waiting forever and the casino would hang, so pools known to be
+     * bounded that way are rejected.
+     *
+     * @param executor the executor running the agents, or null for platform threads
+     * @throws IllegalArgumentException if the executor can't run every agent at once
+     */
+    public void setExecutor(Executor executor) {
+        int limit = Integer.MAX_VALUE;
+        if (executor instanceof ThreadPoolExecutor pool) limit = pool.getMaximumPoolSize();
+        //Parked agents don't make a ForkJoinPool add threads
+        else if (executor instanceof ForkJoinPool pool) limit = pool.getParallelism();
+
+        if (limit < agents.size()) {
+            throw new IllegalArgumentException("The executor runs " + limit + " tasks at once, the casino needs one per agent: "
+                    + agents.size());
+        }
+        this.executor = executor;
+    }
+
+    /**
+     * @return the simulated time the casino stays open in the current run on
+     * the virtual clock, in ms, or 0 when it runs on its clock
+     */
+    public long getSimulatedDuration() {
+        return simulatedDuration;
+    }
+
+    /**
+     * @return the time between two steps of a walk, in ms
+     */
+    public long getWalkTick() {
+        return walkTick;
+    }
+
+    /**
+     * Sets the time between two steps of a walk. The players cover
+     * Player.SPEED px every Player.TICK however long their steps are, so a
+     * longer step means fewer steps to simulate, and the GUI interpolates
+     * between them. It has to be set before opening the casino.
+     *
+     * @param walkTick the time between two steps, in ms
+     */
+    public void setWalkTick(long walkTick) {
+        if (walkTick <= 0) throw new IllegalArgumentException("The walk tick must be positive: " + walkTick);
+        this.walkTick = walkTick;
+    }
+
+    /**
+     * Runs every agent on its own virtual thread
+     */
+    public void useVirtualThreads() {
+        setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public Executor getExecutor() {
+        return this.executor;
+    }
+
+    /**
+     * @return every agent of the casino, the players first, it can't be modified
+     */
+    public List<Agent> getAgents() {
+        return this.agents;
+    }
+
+    /**
+     * @return the frames the views read the casino from, instead of the live agents
+     */
+    public FrameBuffer getFrames() {
+        return this.frames;
     }
 
     public ArrayList<Player> getPlayers() {
         return this.players;
     }
 
-    public PriorityBlockingQueue<Cashier> getCashiers() {
+    /**
+     * @return the state of every player, in parallel arrays indexed by player id
+     */
+    public PlayerStore getPlayerStore() {
+        return this.playerStore;
+    }
+
+    public ArrayList<Cashier> getCashiers() {
         return this.cashiers;
     }
 
@@ -207,18 +430,46 @@ public class Casino {
         return this.croupiers;
     }
 
+    /**
+     * @return the house's accounts of every game and exchange
+     */
+    public HouseLedger getLedger() {
+        return this.ledger;
+    }
+
+    /**
+     * @return the number of players in each state, players that left are not counted
+     */
+    public StateCounter<PlayerState> getPlayerStates() {
+        return playerStates;
+    }
+
+    public StateCounter<CashierState> getCashierStates() {
+        return cashierStates;
+    }
+
+    public StateCounter<SlotMachineSate> getSlotMachineStates() {
+        return slotMachineStates;
+    }
+
+    public StateCounter<CroupierState> getCroupierStates() {
+        return croupierStates;
+    }
+
     public int getMonitorPort() {
         return this.monitorPort;
     }
 
-    public static void playSound(String soundFile) throws UnsupportedAudioFileException, IOException, LineUnavailableException {
-        File file = new File(soundFile);
-        AudioInputStream audioStream = AudioSystem.getAudioInputStream(file);
-
-        Clip clip = AudioSystem.getClip();
-        clip.open(audioStream);
+    /**
+     * Hands the sound to the casino's mixer, it returns right away
+     *
+     * @param sound the sound to be played
+     */
+    public void playSound(SoundMixer.Sound sound) {
+        //There is nobody listening to a simulation running on a virtual clock
+        if (isEventDriven()) return;
 
-        clip.start();
+        sounds.play(sound);
     }
 
 }
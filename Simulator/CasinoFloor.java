@@ -0,0 +1,53 @@
+package Simulator;
+
+import Calc.Vector2D;
+import GUI.CASINO_LOCATION;
+
+import java.util.Random;
+
+/**
+ * Layout of the casino floor shared by the simulation and its views
+ */
+public final class CasinoFloor {
+    /**
+     * Bounds of an area of the floor. It is not a java.awt.Rectangle, whose
+     * class loads the AWT toolkit, so a casino without views never touches AWT.
+     */
+    public record Area(int x, int y, int width, int height) {}
+
+    //CASINO LOCATIONS
+    public static final Area LOBBY_RECT = new Area(0, 0, 200, 200);
+    public static final Area CASHIER_RECT = new Area(0, 200, 200, 200);
+    public static final Area GAME_RECT = new Area(200, 0, 300, 400);
+
+    private static final Random rand = new Random();
+
+    private CasinoFloor(){}
+
+    public static Vector2D getDestination(CASINO_LOCATION location){
+        float x = 0;
+        float y = 0;
+        switch (location){
+            case ENTRANCE -> {
+                x = 0;
+                y = 200;
+            }
+
+            case LOBBY -> {
+                x = rand.nextInt(LOBBY_RECT.x(), LOBBY_RECT.x() + LOBBY_RECT.width());
+                y = rand.nextInt(LOBBY_RECT.y(), LOBBY_RECT.y() + LOBBY_RECT.height());
+            }
+
+            case CASHIER_AREA -> {
+                x = rand.nextInt(CASHIER_RECT.x(), CASHIER_RECT.x() + CASHIER_RECT.width());
+                y = rand.nextInt(CASHIER_RECT.y(), CASHIER_RECT.y() + CASHIER_RECT.height());
+            }
+
+            case GAME_AREA -> {
+                x = rand.nextInt(GAME_RECT.x(), GAME_RECT.x() + GAME_RECT.width());
+                y = rand.nextInt(GAME_RECT.y(), GAME_RECT.y() + GAME_RECT.height());
+            }
+        }
+        return new Vector2D(x, y);
+    }
+}
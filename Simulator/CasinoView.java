@@ -0,0 +1,18 @@
+package Simulator;
+
+/**
+ * A view showing a casino. Views are optional, a casino runs headless until
+ * one is attached to it with Casino.attach
+ */
+public interface CasinoView {
+    /**
+     * Starts showing the casino, called when the casino opens or when the
+     * view is attached to an already open casino
+     */
+    void start();
+
+    /**
+     * Stops showing the casino, called when the view is detached
+     */
+    void stop();
+}
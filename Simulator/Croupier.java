@@ -3,129 +3,199 @@ package Simulator;
 import Agent.Agent;
 import Calc.Vector2D;
 
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import java.awt.*;
 import java.io.File;
-import java.io.IOException;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class Croupier extends Agent {
     //STATIC ATTRIBUTES
     public static final int COST = 1;
-    public static int SPACES = 5;
 
     public enum GameType { ROULETTE, Blackjack, Poker}
 
+    /**
+     * Phases of a round as seen by the players sitting at the table
+     */
+    public enum RoundPhase { BETTING, PLAYING, SETTLED }
+
+    /**
+     * Value of the reserved seats while a game is being played, no player
+     * can sit down until the table opens again
+     */
+    private static final int TABLE_CLOSED = -1;
+
     //FINAL ATTRIBUTES
-    private final List<Player> players = new ArrayList<>(SPACES);
+    private final AtomicInteger reserved = new AtomicInteger(TABLE_CLOSED);
+    private final AtomicReferenceArray<Player> seats;
+    //Seats of this table, each table has its own
+    private final int spaces;
     private final GameType gameType;
+    private final HouseLedger.Account account;
     private final Random rand = new Random();
 
     private final long gameStartWaitTime = 2000;
     private final long gameDuration = 3000;
+    private static final long TICK = 100;
 
-    private Semaphore available = new Semaphore(SPACES);
-    private CroupierState agentState;
+    //Null once the table is closed
+    private final AtomicReference<CroupierState> agentState = new AtomicReference<>();
+    /**
+     * Number of the round being played, it moves on once every seat is settled
+     */
+    private volatile int round = 0;
+    private long bettingDeadline = -1;
 
     protected Croupier(String name, Casino casino, Vector2D position, int bufferSize, GameType game) {
         super(name, casino, new File("Assets/croupier.png"));
-        SPACES = bufferSize;
+        spaces = bufferSize;
+        seats = new AtomicReferenceArray<>(spaces);
         pos = position;
         gameType = game;
-        agentState = CroupierState.AVAILABLE;
+        account = casino.getLedger().openTableAccount(game);
+        casino.getCroupierStates().open(agentState, CroupierState.AVAILABLE);
     }
 
-    public synchronized List<Player> getPlayers() {
+    /**
+     * @return the players sitting at the table
+     */
+    public List<Player> getPlayers() {
+        List<Player> players = new ArrayList<>(seats.length());
+        for (int s = 0; s < seats.length(); s++) {
+            Player player = seats.get(s);
+            if (player != null) players.add(player);
+        }
         return players;
     }
 
-    private void close() throws InterruptedException {
+    private void close() {
         this.killAgent();
+        casino.getCroupierStates().close(agentState);
     }
 
-    //Changes STATE and carries out an action depending on the STATE
+    //Changes STATE and carries out an action depending on the STATE, a closing or closed table stays so
     private void changeState(CroupierState newState) {
-        agentState = newState;
-        switch (agentState) {
+        CroupierState previous;
+        do {
+            previous = agentState.get();
+            if (previous == CroupierState.CLOSING || previous == null) return;
+        } while (!agentState.compareAndSet(previous, newState));
+        casino.getCroupierStates().move(previous, newState);
+
+        switch (newState) {
             case ENDING_GAME -> {
-                players.clear();
+                for (int s = 0; s < seats.length(); s++) seats.set(s, null);
                 changeState(CroupierState.AVAILABLE);
+                reserved.set(0);
             }
 
         }
     }
 
-    public synchronized boolean isAvailable() {
-        return agentState == CroupierState.AVAILABLE || agentState == CroupierState.WAITING_PLAYERS;
+    /**
+     * Empties the table and opens it for a new round without playing the
+     * current one. Only for SeatingBench, which seats players on croupiers
+     * that are not running.
+     */
+    void reopenTable() {
+        for (int s = 0; s < seats.length(); s++) seats.set(s, null);
+        reserved.set(0);
     }
 
+    public boolean isAvailable() {
+        int taken = reserved.get();
+        return taken != TABLE_CLOSED && taken < spaces;
+    }
+
+    /**
+     * Sits the player at the table for the current round. The seat is reserved
+     * with a single CAS on this table's counter, so players joining different
+     * tables never wait on each other, and the croupier is left to start the
+     * round on its own step.
+     *
+     * @param player the player joining the game
+     * @return false if the table is full or a game is being played
+     */
     public boolean addPlayer(Player player) {
-        try {
-            available.acquire(); // Limit access with semaphore
-            synchronized (players) {
-                if (players.size() == SPACES) {
-                    available.release(); // Release semaphore if game is full
-                    System.out.println(getName() + " game is already full");
-                    return false;
-                }
+        // Deduct cost, it is given back if there is no seat left
+        if (!player.charge(COST)) return false;
 
-                // Deduct cost and add player
-                player.setChips(player.getChips() - COST);
-                players.add(player);
-                System.out.println(player.getName() + " has joined. Total players: " + players.size());
+        int seat;
+        do {
+            seat = reserved.get();
+            if (seat == TABLE_CLOSED || seat >= spaces) {
+                player.pay(COST);
+                return false;
+            }
+        } while (!reserved.compareAndSet(seat, seat + 1));
 
-                // Check if game can start
-                if(players.size() >= SPACES){
-                    changeState(CroupierState.STARTING_GAME);
-                    startGame();
-                }
+        // Add player, the round cannot end before the seat is taken
+        account.receive(COST * Cashier.CHIP_PRICE);
+        player.joinRound(round);
+        seats.set(seat, player);
 
-                if(players.size() >= 2){
-                    changeState(CroupierState.WAITING_PLAYERS);
-                }
+        // First bet or full table, the croupier takes it from here
+        if (seat == 0 || seat + 1 == spaces) wake();
+        return true;
+    }
 
-                // else if (agentState == CroupierState.WAITING_PLAYERS) {
-                //     startGame();
-                //     changeState(CroupierState.STARTING_GAME);
-                // }
-                
-            }
-        } catch (InterruptedException | UnsupportedAudioFileException | LineUnavailableException | IOException e) {
-            Thread.currentThread().interrupt();
-            System.out.println(getName() + " was interrupted");
-            return false;
-        } finally {
-            available.release(); // Ensure semaphore is always released
+    /**
+     * @param round the round the player joined
+     * @return the phase of that round
+     */
+    public RoundPhase getPhase(int round) {
+        if (round < this.round) return RoundPhase.SETTLED;
+        return reserved.get() == TABLE_CLOSED ? RoundPhase.PLAYING : RoundPhase.BETTING;
+    }
+
+    /**
+     * Closes the table so nobody else sits down, and waits for the players
+     * that already reserved a seat to take it
+     *
+     * @return the players in the game
+     */
+    private List<Player> closeTable() {
+        int taken = reserved.getAndSet(TABLE_CLOSED);
+        List<Player> players = new ArrayList<>(Math.max(taken, 0));
+
+        for (int s = 0; s < taken; s++) {
+            Player player;
+            while ((player = seats.get(s)) == null) Thread.yield();
+            players.add(player);
         }
-        return true;
+        return players;
     }
 
-    public void startGame() throws UnsupportedAudioFileException, LineUnavailableException, IOException {
+    /**
+     * Stops taking bets and wakes every player at the table once
+     */
+    private void startGame() {
         changeState(CroupierState.GAME_STARTED);
 
-        for (Player player : players) {
-            player.setState(PlayerState.IN_GAME_CROUPIER);
-        }
+        closeTable().forEach(Player::wake);
+    }
 
-        try {
-            Thread.sleep(gameDuration);
-        } catch (InterruptedException e) {
-            for (Player player : players) {
-                player.setState(PlayerState.WAITING_GAME_END);
-            }
-            return;
-        }
-        
-        
+    /**
+     * Settles every seat in one go, then opens the table for the next round
+     * and wakes the players so they can collect their winnings
+     */
+    private void endGame() {
+        List<Player> players = getPlayers();
+        long winnings = 0;
         for (Player player : players) {
-            player.setState(PlayerState.WAITING_GAME_END);
+            int chips = (int) (Croupier.COST * processResult(rand.nextFloat()));
+            player.pay(chips);
+            winnings += chips;
         }
-        
+        account.pay(winnings * Cashier.CHIP_PRICE);
+        round++;
+
         changeState(CroupierState.ENDING_GAME);
-        Casino.playSound("Sounds/Croupier-done.wav");
+        players.forEach(Player::wake);
+        casino.playSound(SoundMixer.Sound.CROUPIER);
     }
 
     private float processResult(float odds) {
@@ -164,59 +234,80 @@ public class Croupier extends Agent {
         return 0;
     }
 
-    public void getResults(Player player) {
-        float odds = rand.nextFloat();
-        player.pay((int) (Croupier.COST * processResult(odds)));
-    }
-
     public int numPlayers() {
-        return this.players.size();
+        return getPlayers().size();
     }
 
     @Override
-    public void run() {
-        while (isAgentAlive() && !isInterrupted()) {
-            try {
-                switch (agentState) {
-                    case WAITING_PLAYERS -> {
-                        Thread.sleep(gameStartWaitTime);
-                        agentState = CroupierState.STARTING_GAME;
-                    }
-                    case STARTING_GAME -> startGame();
-                    case CLOSING -> close();
+    public long execute() {
+        CroupierState state = agentState.get();
+        if (state == null) return PARK;
+
+        switch (state) {
+            case AVAILABLE -> {
+                //Sleeps until the first player sits down
+                if (reserved.get() < 1) return PARK;
+                bettingDeadline = casino.now() + gameStartWaitTime;
+                changeState(CroupierState.WAITING_PLAYERS);
+                return 0;
+            }
+            case WAITING_PLAYERS -> {
+                //Takes bets until the table is full or the time runs out
+                int taken = reserved.get();
+                if (taken < spaces && casino.now() < bettingDeadline) return TICK;
+
+                //A single player waits for someone to play against, unless the casino is closing
+                if (taken < 2 && !casino.isClosed()) {
+                    bettingDeadline = casino.now() + gameStartWaitTime;
+                    return TICK;
                 }
-            } catch (InterruptedException | UnsupportedAudioFileException | LineUnavailableException | IOException ie) {
-                System.out.println("Error Al Cambiar de Estado en Croupier: " + ie.getMessage());
-                break;
+                changeState(CroupierState.STARTING_GAME);
+                return 0;
             }
+            case STARTING_GAME -> {
+                startGame();
+                return gameDuration;
+            }
+            case GAME_STARTED -> endGame();
+            case CLOSING -> close();
         }
+        return TICK;
     }
 
     @Override
     public String getAgentState() {
-        if (!isAgentAlive()) return "CLOSED";
-        return agentState.toString();
+        CroupierState state = agentState.get();
+        if (!isAgentAlive() || state == null) return "CLOSED";
+        return state.toString();
+    }
+
+    @Override
+    public Enum<?> getAgentStateValue() {
+        return isAgentAlive() ? agentState.get() : null;
     }
 
     @Override
     public void stopWork() {
-        this.agentState = CroupierState.CLOSING;
+        casino.getCroupierStates().change(agentState, CroupierState.CLOSING);
+        wake();
     }
 
     @Override
     public void startWork() {
-        changeState(CroupierState.WAITING_PLAYERS);
+        casino.getCroupierStates().open(agentState, CroupierState.AVAILABLE);
+        reserved.set(0);
         this.startAgent();
     }
 
     @Override
-    public void draw(Graphics g) {
+    public void draw(Graphics g, FrameSnapshot frame, int index, float x, float y) {
+        Image image = getImage(96, 48);
         if (image == null) {
             g.setColor(new Color(113, 255, 1));
-            g.fillArc((int) pos.getX(), (int) pos.getY(), 10, 10, 0, 360);
+            g.fillArc((int) x, (int) y, 10, 10, 0, 360);
         }
         else {
-            g.drawImage(image, (int) pos.getX(), (int) pos.getY(), 96, 48, null);
+            g.drawImage(image, (int) x, (int) y, null);
         }
     }
 }
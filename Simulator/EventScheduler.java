@@ -0,0 +1,94 @@
+package Simulator;
+
+import Agent.Agent;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Discrete-event engine that steps the agents on a virtual clock instead of
+ * one thread per agent. Each agent has at most one pending event, the time its
+ * next execute() is due; agents that return Agent.PARK are kept aside until
+ * another agent wakes them up.
+ */
+public class EventScheduler {
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final Set<Agent> parked = Collections.newSetFromMap(new IdentityHashMap<>());
+    private long now = 0;
+    private long sequence = 0;
+
+    /**
+     * Events due at the same time run in the order they were scheduled
+     */
+    private record Event(long time, long sequence, Agent agent) implements Comparable<Event> {
+        @Override
+        public int compareTo(Event other) {
+            int byTime = Long.compare(time, other.time);
+            return byTime != 0 ? byTime : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * @return the current virtual time, in milliseconds since the simulation started
+     */
+    public long now() {
+        return now;
+    }
+
+    /**
+     * Schedules the next step of an agent
+     *
+     * @param agent the agent to be stepped
+     * @param delay the milliseconds from now until the step is due
+     */
+    public void schedule(Agent agent, long delay) {
+        parked.remove(agent);
+        events.add(new Event(now + Math.max(delay, 0), sequence++, agent));
+    }
+
+    /**
+     * Schedules a parked agent to step right away, agents that already have
+     * a pending step are left untouched
+     *
+     * @param agent the agent to be woken up
+     */
+    public void wake(Agent agent) {
+        if (parked.remove(agent)) {
+            events.add(new Event(now, sequence++, agent));
+        }
+    }
+
+    /**
+     * Processes every event due up to the given time and then advances the
+     * clock to it
+     *
+     * @param time the virtual time to run to, in milliseconds
+     */
+    public void runUntil(long time) {
+        while (!events.isEmpty() && events.peek().time() <= time) {
+            Event event = events.poll();
+            Agent agent = event.agent();
+            now = event.time();
+            if (!agent.isAgentAlive()) continue;
+
+            long delay;
+            try {
+                delay = agent.execute();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (!agent.isAgentAlive()) continue;
+            if (delay == Agent.PARK) parked.add(agent);
+            else schedule(agent, delay);
+        }
+        now = Math.max(now, time);
+    }
+
+    public boolean isIdle() {
+        return events.isEmpty();
+    }
+}
@@ -0,0 +1,145 @@
+package Simulator;
+
+import Agent.Agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes FrameSnapshots of a casino for its views. A single publisher
+ * thread fills a frame nobody is reading and then swaps it in, so the views
+ * never read agents that are being changed, and never make the simulation
+ * wait for them.
+ * <p>
+ * The frames are double buffered: the publisher fills the back frame while
+ * the views read the front one. A view still holding an older frame keeps
+ * it, and the publisher takes a spare instead, so there are the front and
+ * back frames plus the ones the views hold, and no frame is allocated in
+ * steady state. Most views hold one frame, CasinoGUI holds two, the previous
+ * and the current one it interpolates between.
+ * <p>
+ * Nothing is captured for a casino nobody watches. The casino only runs the
+ * publisher while it is open and has views attached, and the first frame is
+ * captured when it is first acquired.
+ */
+public class FrameBuffer {
+    /**
+     * Time between two frames, in ms, about 60 frames per second
+     */
+    public static final long FRAME_TIME = 16;
+
+    private final Casino casino;
+    private final List<Agent> agents;
+    private final int playerCount;
+    //Only touched by the publisher
+    private final ArrayList<FrameSnapshot> frames = new ArrayList<>();
+    private long sequence = 0;
+
+    private volatile FrameSnapshot front;
+    private Thread publisher;
+
+    FrameBuffer(Casino casino) {
+        this.casino = casino;
+        this.agents = casino.getAgents();
+        this.playerCount = casino.getPlayers().size();
+    }
+
+    /**
+     * Takes the latest frame, never blocking the publisher
+     *
+     * @return the frame, to be released once it was read
+     */
+    public FrameSnapshot acquire() {
+        if (front == null) publishFirst();
+        while (true) {
+            FrameSnapshot frame = front;
+            frame.retain();
+            //The publisher could have taken the frame back before it was retained
+            if (frame == front) return frame;
+            frame.release();
+        }
+    }
+
+    /**
+     * Waits until a frame newer than the given one is published, for views
+     * that want every frame instead of the latest one when they look
+     *
+     * @param sequence the sequence of the last frame the view read, or -1
+     * @param timeout  the longest wait, in ms
+     * @return the newer frame, to be released once it was read, or null if none was published in time
+     */
+    public FrameSnapshot acquireAfter(long sequence, long timeout) throws InterruptedException {
+        synchronized (this) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (front == null || front.getSequence() <= sequence) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return null;
+                TimeUnit.NANOSECONDS.timedWait(this, left);
+            }
+        }
+        return acquire();
+    }
+
+    private synchronized void publishFirst() {
+        if (front == null) publish();
+    }
+
+    /**
+     * Captures the casino in a frame nobody is reading and makes it the front frame
+     */
+    synchronized void publish() {
+        FrameSnapshot back = null;
+        for (int f = 0; f < frames.size() && back == null; f++) {
+            FrameSnapshot frame = frames.get(f);
+            if (frame != front && !frame.isRead()) back = frame;
+        }
+        if (back == null) {
+            back = new FrameSnapshot(agents, playerCount);
+            frames.add(back);
+        }
+
+        back.capture(casino, ++sequence, front);
+        front = back;
+        notifyAll();
+    }
+
+    /**
+     * @return true while the publisher is running
+     */
+    public synchronized boolean isPublishing() {
+        return publisher != null;
+    }
+
+    /**
+     * Starts publishing a frame every FRAME_TIME ms, until stop is called
+     */
+    synchronized void start() {
+        if (publisher != null) return;
+
+        publisher = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                publish();
+                try {
+                    Thread.sleep(FRAME_TIME);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        });
+        publisher.setName("Frame Publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    /**
+     * Stops the publisher, after publishing the last frame
+     */
+    synchronized void stop() {
+        if (publisher == null) return;
+
+        publisher.interrupt();
+        publisher = null;
+        publish();
+    }
+}
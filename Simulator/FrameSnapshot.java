@@ -0,0 +1,148 @@
+package Simulator;
+
+import Agent.Agent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The casino as it was at one point in time, read by the views instead of the
+ * live agents. A snapshot doesn't change while it is held, it is taken with
+ * FrameBuffer.acquire and has to be released once it was read, so the buffer
+ * can fill it again with a newer frame.
+ * <p>
+ * Agents are indexed as in Casino.getAgents, the players first.
+ */
+public final class FrameSnapshot {
+    private final List<Agent> agents;
+    private final int playerCount;
+    private final float[] x;
+    private final float[] y;
+    private final Enum<?>[] states;
+    private final long[] balances;
+    private final int[] chips;
+    private final AtomicInteger readers = new AtomicInteger();
+
+    private long sequence;
+    private long version;
+    private long time;
+    private long wagered;
+    private long paidOut;
+    private long chipFloat;
+
+    FrameSnapshot(List<Agent> agents, int playerCount) {
+        this.agents = agents;
+        this.playerCount = playerCount;
+        this.x = new float[agents.size()];
+        this.y = new float[agents.size()];
+        this.states = new Enum<?>[agents.size()];
+        this.balances = new long[playerCount];
+        this.chips = new int[playerCount];
+    }
+
+    /**
+     * Copies the state of every agent into this frame, without allocating,
+     * and compares it with the previous frame while doing so
+     *
+     * @param previous the frame published before this one, or null
+     */
+    void capture(Casino casino, long sequence, FrameSnapshot previous) {
+        PlayerStore store = casino.getPlayerStore();
+        boolean changed = previous == null;
+        for (int a = 0; a < agents.size(); a++) {
+            Agent agent = agents.get(a);
+            states[a] = agent.getAgentStateValue();
+            if (a < playerCount) {
+                int id = ((Player) agent).getPlayerId();
+                x[a] = store.getX(id);
+                y[a] = store.getY(id);
+                balances[a] = store.getBalance(id);
+                chips[a] = store.getChips(id);
+                if (!changed) changed = balances[a] != previous.balances[a] || chips[a] != previous.chips[a];
+            } else {
+                x[a] = agent.getPos().getX();
+                y[a] = agent.getPos().getY();
+            }
+            if (!changed) changed = x[a] != previous.x[a] || y[a] != previous.y[a] || states[a] != previous.states[a];
+        }
+
+        HouseLedger ledger = casino.getLedger();
+        this.wagered = ledger.getWagered();
+        this.paidOut = ledger.getPaidOut();
+        this.chipFloat = ledger.getChipFloat();
+        this.time = casino.now();
+        this.sequence = sequence;
+        this.version = previous == null ? 0 : changed ? previous.version + 1 : previous.version;
+    }
+
+    void retain() {
+        readers.incrementAndGet();
+    }
+
+    boolean isRead() {
+        return readers.get() > 0;
+    }
+
+    /**
+     * Gives the frame back to its buffer, it must not be read afterwards
+     */
+    public void release() {
+        readers.decrementAndGet();
+    }
+
+    /**
+     * @return the number of the frame, it grows with every frame published
+     */
+    public long getSequence() { return sequence; }
+
+    /**
+     * @return the number of the casino's state in the frame, it only grows
+     * when something changed since the previous frame, so two frames with the
+     * same version look the same
+     */
+    public long getVersion() { return version; }
+
+    /**
+     * @return the simulated time the frame was taken at, in ms
+     */
+    public long getTime() { return time; }
+
+    public int size() { return agents.size(); }
+    public int getPlayerCount() { return playerCount; }
+    public Agent getAgent(int index) { return agents.get(index); }
+
+    public float getX(int index) { return x[index]; }
+    public float getY(int index) { return y[index]; }
+
+    /**
+     * @return the state of the agent, or null if it is closed or out of the casino
+     */
+    public Enum<?> getState(int index) { return states[index]; }
+
+    /**
+     * @return the name of the agent's state, as shown by the views
+     */
+    public String getStateName(int index) {
+        Enum<?> state = states[index];
+        if (state != null) return state.name();
+        return index < playerCount ? "OUT" : "CLOSED";
+    }
+
+    /**
+     * @param index the index of a player
+     * @return the player's money, in cents
+     */
+    public long getBalance(int index) { return balances[index]; }
+
+    /**
+     * @param index the index of a player
+     */
+    public int getChips(int index) { return chips[index]; }
+
+    /**
+     * @return the house's figures when the frame was taken
+     */
+    public HouseLedger.Snapshot getHouse() {
+        return new HouseLedger.Snapshot(wagered, paidOut, chipFloat);
+    }
+}
@@ -0,0 +1,134 @@
+package Simulator;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * PlayerStore on the heap, every field is a primitive array indexed by the
+ * player's id. Balances and chips are updated with CAS, since the player, the
+ * cashiers and the croupiers all change them.
+ */
+public class HeapPlayerStore implements PlayerStore {
+    private static final PlayerState[] STATES = PlayerState.values();
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private final float[] x;
+    private final float[] y;
+    private final long[] balance;
+    private final int[] chips;
+    private final byte[] state;
+    private int size = 0;
+
+    /**
+     * @param capacity the number of players the store can hold
+     */
+    public HeapPlayerStore(int capacity) {
+        this.x = new float[capacity];
+        this.y = new float[capacity];
+        this.balance = new long[capacity];
+        this.chips = new int[capacity];
+        this.state = new byte[capacity];
+    }
+
+    @Override
+    public int add() {
+        if (size == state.length) throw new IllegalStateException("The player store is full");
+        return size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public float getX(int id) { return x[id]; }
+    @Override
+    public float getY(int id) { return y[id]; }
+
+    @Override
+    public void setPosition(int id, float x, float y) {
+        this.x[id] = x;
+        this.y[id] = y;
+    }
+
+    @Override
+    public long getBalance(int id) { return (long) LONGS.getVolatile(balance, id); }
+    @Override
+    public void setBalance(int id, long balance) { LONGS.setVolatile(this.balance, id, balance); }
+
+    @Override
+    public void addBalance(int id, long amount) {
+        LONGS.getAndAdd(balance, id, amount);
+    }
+
+    @Override
+    public boolean chargeBalance(int id, long amount) {
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(balance, id);
+            if (current < amount) return false;
+        } while (!LONGS.compareAndSet(balance, id, current, current - amount));
+        return true;
+    }
+
+    @Override
+    public int getChips(int id) { return (int) INTS.getVolatile(chips, id); }
+    @Override
+    public void setChips(int id, int chips) { INTS.setVolatile(this.chips, id, chips); }
+
+    @Override
+    public void addChips(int id, int chips) {
+        INTS.getAndAdd(this.chips, id, chips);
+    }
+
+    @Override
+    public boolean chargeChips(int id, int chips) {
+        int current;
+        do {
+            current = (int) INTS.getVolatile(this.chips, id);
+            if (current < chips) return false;
+        } while (!INTS.compareAndSet(this.chips, id, current, current - chips));
+        return true;
+    }
+
+    @Override
+    public PlayerState getState(int id) {
+        byte ordinal = state[id];
+        return ordinal == OUT ? null : STATES[ordinal];
+    }
+
+    @Override
+    public void setState(int id, PlayerState state) {
+        this.state[id] = (byte) state.ordinal();
+    }
+
+    @Override
+    public void setOut(int id) {
+        this.state[id] = OUT;
+    }
+
+    @Override
+    public long totalBalance() {
+        long total = 0;
+        for (int p = 0; p < size; p++) total += balance[p];
+        return total;
+    }
+
+    @Override
+    public long totalChips() {
+        long total = 0;
+        for (int p = 0; p < size; p++) total += chips[p];
+        return total;
+    }
+
+    @Override
+    public int[] countStates() {
+        int[] counts = new int[STATES.length];
+        for (int p = 0; p < size; p++) {
+            if (state[p] != OUT) counts[state[p]]++;
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,167 @@
+package Simulator;
+
+import Calc.Money;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The house's side of every game and exchange. Each cashier, slot machine and
+ * table books on its own account, and every account also books on the totals
+ * of its game, so a snapshot of the whole casino only reads a handful of
+ * counters no matter how many agents there are. The counters are LongAdders,
+ * concurrent games add to different cells instead of fighting over one.
+ */
+public class HouseLedger {
+    /**
+     * Money received and paid by the house through an agent or a game, in cents
+     */
+    public static class Account {
+        private final LongAdder received = new LongAdder();
+        private final LongAdder paid = new LongAdder();
+        private final Account total;
+
+        private Account(Account total) {
+            this.total = total;
+        }
+
+        /**
+         * @param cents the money the house received, like a bet or the price of chips
+         */
+        public void receive(long cents) {
+            received.add(cents);
+            if (total != null) total.receive(cents);
+        }
+
+        /**
+         * @param cents the money the house paid, like winnings or cashed out chips
+         */
+        public void pay(long cents) {
+            paid.add(cents);
+            if (total != null) total.pay(cents);
+        }
+
+        public long getReceived() {
+            return received.sum();
+        }
+
+        public long getPaid() {
+            return paid.sum();
+        }
+
+        /**
+         * @return what the house kept, in cents
+         */
+        public long getNet() {
+            return getReceived() - getPaid();
+        }
+    }
+
+    /**
+     * Figures of the whole casino at one point in time
+     *
+     * @param wagered   the money bet in every game, in cents
+     * @param paidOut   the winnings paid in every game, in cents
+     * @param chipFloat the chips in the players' hands
+     */
+    public record Snapshot(long wagered, long paidOut, long chipFloat) {
+        /**
+         * @return the money the house won in the games, in cents
+         */
+        public long grossGamingRevenue() {
+            return wagered - paidOut;
+        }
+
+        /**
+         * @return the percentage of the money bet that the house kept
+         */
+        public double holdPercent() {
+            return wagered == 0 ? 0 : 100.0 * grossGamingRevenue() / wagered;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("GGR: $%s, Hold: %.2f%%, Chip float: %d",
+                    Money.format(grossGamingRevenue()), holdPercent(), chipFloat);
+        }
+    }
+
+    private final Account games = new Account(null);
+    private final Account slotMachines = new Account(games);
+    private final Account tables = new Account(games);
+    private final Map<Croupier.GameType, Account> tableGames = new EnumMap<>(Croupier.GameType.class);
+    private final Account cashiers = new Account(null);
+
+    public HouseLedger() {
+        for (Croupier.GameType game : Croupier.GameType.values()) {
+            tableGames.put(game, new Account(tables));
+        }
+    }
+
+    /**
+     * @return a new account for a slot machine, booked on the slot machines' total
+     */
+    public Account openSlotMachineAccount() {
+        return new Account(slotMachines);
+    }
+
+    /**
+     * @param game the game played at the table
+     * @return a new account for a table, booked on the total of its game
+     */
+    public Account openTableAccount(Croupier.GameType game) {
+        return new Account(tableGames.get(game));
+    }
+
+    /**
+     * @return a new account for a cashier, chips sold are received and chips
+     * cashed out are paid
+     */
+    public Account openCashierAccount() {
+        return new Account(cashiers);
+    }
+
+    public Account getSlotMachines() {
+        return slotMachines;
+    }
+
+    public Account getTables(Croupier.GameType game) {
+        return tableGames.get(game);
+    }
+
+    public Account getCashiers() {
+        return cashiers;
+    }
+
+    /**
+     * @return the money bet in every game, in cents
+     */
+    public long getWagered() {
+        return games.getReceived();
+    }
+
+    /**
+     * @return the winnings paid in every game, in cents
+     */
+    public long getPaidOut() {
+        return games.getPaid();
+    }
+
+    /**
+     * @return the chips in the players' hands
+     */
+    public long getChipFloat() {
+        //Chips sold and not cashed out, minus the ones the tables kept
+        return (cashiers.getNet() - tables.getNet()) / Cashier.CHIP_PRICE;
+    }
+
+    /**
+     * Reads the totals, the cost does not depend on the number of agents or games
+     *
+     * @return the figures of the whole casino
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(getWagered(), getPaidOut(), getChipFloat());
+    }
+}
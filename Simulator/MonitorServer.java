@@ -0,0 +1,95 @@
+package Simulator;
+
+import Calc.Money;
+import Utils.NetworkUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.*;
+
+/**
+ * TCP feed of the players' state read by the client's monitor. It does not
+ * need a display, so it can be attached to a headless casino.
+ */
+public class MonitorServer implements CasinoView {
+    private final FrameBuffer frames;
+    private final int monitorPort;
+    private Thread tcpThread;
+    private boolean tcpThreadAlive = false;
+
+    public MonitorServer(Casino casino) {
+        this.frames = casino.getFrames();
+        this.monitorPort = casino.getMonitorPort() + 5000;
+    }
+
+    @Override
+    public void start() {
+        System.out.println("Starting TCP Server... in port: " + monitorPort);
+        tcpThreadAlive = true;
+        tcpThread = new Thread(() -> {
+            InetAddress wifiAddress = null;
+            try {
+                wifiAddress = NetworkUtils.getAddress(0);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            try (ServerSocket serverSocket = new ServerSocket(monitorPort, 50, wifiAddress);
+            ) {
+                System.out.println("TCP Server started on port " + monitorPort + ".");
+                while (tcpThreadAlive) {
+                    try (Socket clientSocket = serverSocket.accept();
+                         OutputStream outputStream = clientSocket.getOutputStream();
+                         PrintWriter writer = new PrintWriter(outputStream, true)) {
+
+                        System.out.println("Client connected.");
+                        while (tcpThreadAlive && !Thread.currentThread().isInterrupted()) {
+                            String currentState = getCurrentState();
+                            writer.println(currentState);
+                            Thread.sleep(1000);
+                        }
+                    } catch (Exception e) {
+                    }
+                }
+            } catch (Exception e) {
+                System.err.println("Error starting TCP Server: " + e.getMessage());
+            }
+        });
+
+        tcpThread.setName("TCP Monitor Server");
+        tcpThread.start();
+    }
+
+    @Override
+    public void stop() {
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        tcpThreadAlive = false;
+        if (tcpThread != null) {
+            tcpThread.interrupt();
+        }
+    }
+
+    private String getCurrentState() {
+        StringBuilder state = new StringBuilder();
+        FrameSnapshot frame = frames.acquire();
+        try {
+            HouseLedger.Snapshot house = frame.getHouse();
+            state.append(String.format("House, GGR: %s, Hold: %.2f, Float: %d|",
+                    Money.format(house.grossGamingRevenue()), house.holdPercent(), house.chipFloat()));
+            for (int p = 0; p < frame.getPlayerCount(); p++) {
+                state.append(String.format("Player: %s, State: %s, Balance: %s, Chips: %s|",
+                        frame.getAgent(p).getName(), frame.getStateName(p), Money.format(frame.getBalance(p)), frame.getChips(p)));
+            }
+        } finally {
+            frame.release();
+        }
+
+        return state.toString();
+    }
+}
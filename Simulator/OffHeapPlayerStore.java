@@ -0,0 +1,179 @@
+package Simulator;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * PlayerStore outside the heap, so the garbage collector never scans the
+ * players' state no matter how many of them there are. Each player is a
+ * 24-byte record in a direct buffer, or in a file mapped to memory when the
+ * simulation does not fit in the heap or RAM. A buffer is indexed by int, so
+ * one store holds at most MAX_CAPACITY players, about 89M.
+ */
+public class OffHeapPlayerStore implements PlayerStore {
+    //Record layout in bytes, the balance and the chips are aligned for CAS
+    private static final int BALANCE = 0;
+    private static final int X = 8;
+    private static final int Y = 12;
+    private static final int CHIPS = 16;
+    private static final int STATE = 20;
+    public static final int RECORD_SIZE = 24;
+    //Largest store a single 2 GiB buffer can hold, 89,478,485 players
+    public static final int MAX_CAPACITY = Integer.MAX_VALUE / RECORD_SIZE;
+
+    private static final PlayerState[] STATES = PlayerState.values();
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer records;
+    private final int capacity;
+    private int size = 0;
+
+    private OffHeapPlayerStore(ByteBuffer records, int capacity) {
+        this.records = records.order(ByteOrder.nativeOrder());
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a store in a direct buffer
+     *
+     * @param capacity the number of players the store can hold
+     */
+    public static OffHeapPlayerStore allocate(int capacity) {
+        return new OffHeapPlayerStore(ByteBuffer.allocateDirect(recordsSize(capacity)), capacity);
+    }
+
+    /**
+     * Creates a store in a file mapped to memory, the file is created or
+     * overwritten
+     *
+     * @param file     the file backing the store
+     * @param capacity the number of players the store can hold
+     */
+    public static OffHeapPlayerStore map(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            //The mapping stays valid after the channel is closed
+            return new OffHeapPlayerStore(channel.map(FileChannel.MapMode.READ_WRITE, 0, recordsSize(capacity)), capacity);
+        }
+    }
+
+    private static int recordsSize(int capacity) {
+        if (capacity > MAX_CAPACITY) throw new IllegalArgumentException("Too many players for one buffer: " + capacity);
+        return capacity * RECORD_SIZE;
+    }
+
+    private static int offset(int id) {
+        return id * RECORD_SIZE;
+    }
+
+    @Override
+    public int add() {
+        if (size == capacity) throw new IllegalStateException("The player store is full");
+        return size++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public float getX(int id) { return records.getFloat(offset(id) + X); }
+    @Override
+    public float getY(int id) { return records.getFloat(offset(id) + Y); }
+
+    @Override
+    public void setPosition(int id, float x, float y) {
+        records.putFloat(offset(id) + X, x);
+        records.putFloat(offset(id) + Y, y);
+    }
+
+    @Override
+    public long getBalance(int id) { return (long) LONGS.getVolatile(records, offset(id) + BALANCE); }
+    @Override
+    public void setBalance(int id, long balance) { LONGS.setVolatile(records, offset(id) + BALANCE, balance); }
+
+    @Override
+    public void addBalance(int id, long amount) {
+        LONGS.getAndAdd(records, offset(id) + BALANCE, amount);
+    }
+
+    @Override
+    public boolean chargeBalance(int id, long amount) {
+        int index = offset(id) + BALANCE;
+        long current;
+        do {
+            current = (long) LONGS.getVolatile(records, index);
+            if (current < amount) return false;
+        } while (!LONGS.compareAndSet(records, index, current, current - amount));
+        return true;
+    }
+
+    @Override
+    public int getChips(int id) { return (int) INTS.getVolatile(records, offset(id) + CHIPS); }
+    @Override
+    public void setChips(int id, int chips) { INTS.setVolatile(records, offset(id) + CHIPS, chips); }
+
+    @Override
+    public void addChips(int id, int chips) {
+        INTS.getAndAdd(records, offset(id) + CHIPS, chips);
+    }
+
+    @Override
+    public boolean chargeChips(int id, int chips) {
+        int index = offset(id) + CHIPS;
+        int current;
+        do {
+            current = (int) INTS.getVolatile(records, index);
+            if (current < chips) return false;
+        } while (!INTS.compareAndSet(records, index, current, current - chips));
+        return true;
+    }
+
+    @Override
+    public PlayerState getState(int id) {
+        byte ordinal = records.get(offset(id) + STATE);
+        return ordinal == OUT ? null : STATES[ordinal];
+    }
+
+    @Override
+    public void setState(int id, PlayerState state) {
+        records.put(offset(id) + STATE, (byte) state.ordinal());
+    }
+
+    @Override
+    public void setOut(int id) {
+        records.put(offset(id) + STATE, OUT);
+    }
+
+    @Override
+    public long totalBalance() {
+        long total = 0;
+        for (int p = 0; p < size; p++) total += records.getLong(offset(p) + BALANCE);
+        return total;
+    }
+
+    @Override
+    public long totalChips() {
+        long total = 0;
+        for (int p = 0; p < size; p++) total += records.getInt(offset(p) + CHIPS);
+        return total;
+    }
+
+    @Override
+    public int[] countStates() {
+        int[] counts = new int[STATES.length];
+        for (int p = 0; p < size; p++) {
+            byte ordinal = records.get(offset(p) + STATE);
+            if (ordinal != OUT) counts[ordinal]++;
+        }
+        return counts;
+    }
+}
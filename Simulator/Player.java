@@ -1,49 +1,61 @@
 package Simulator;
 
 import Agent.Agent;
+import Calc.Money;
 import Calc.Vector2D;
 import GUI.CASINO_LOCATION;
-import GUI.CasinoGUI;
+import Utils.SpriteCache;
 
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import java.awt.*;
-import java.io.IOException;
 import java.util.Random;
 import java.util.concurrent.Semaphore;
 
 public class Player extends Agent {
+    //STATIC ATTRIBUTES
+    public static final long TICK = 100;
+    public static final long DECISION_TIME = 1000;
+    public static final float SPEED = 6f;
+
     private final Random rand = new Random();
 
     //States attributes
-    private PlayerState agentState;
     private PlayerState nextState;
 
-    //Movement attributes
-    private Vector2D direction;
-    private Vector2D destination;
+    //Movement attributes, updated in place while walking
+    private final Vector2D direction = new Vector2D(0, 0);
+    private final Vector2D destination = new Vector2D(0, 0);
 
-    //Player attributes
-    private float balance;
-    private int chips;
+    //Player attributes, kept in the casino's PlayerStore
+    private final PlayerStore store;
+    private final int id;
 
     //Interaction attributes
     private int chipsToPay;
-    private float moneyToPay;
+    private long moneyToPay;
 
     private Semaphore bouncer;
     private Cashier attendingCashier;
     private SlotMachine currentSlotMachine;
     private Croupier currentCroupier;
+    private int tableRound;
+
+    //Step attributes
+    private boolean thinking;
+    private boolean exchanging;
 
     public Player(String name, Casino casino) {
         super(name, casino);
+        this.store = casino.getPlayerStore();
+        this.id = store.add();
 
-        this.agentState = PlayerState.ENTERING;
-        this.chips = 0;
+        //Straight through the store, no overridable method runs on a half built player
+        store.setState(id, PlayerState.ENTERING);
+        casino.getPlayerStates().move(null, PlayerState.ENTERING);
+        store.setChips(id, 0);
         this.initBalance();
 
-        this.pos = CasinoGUI.getDestination(CASINO_LOCATION.ENTRANCE);
+        this.destination.copy(CasinoFloor.getDestination(CASINO_LOCATION.ENTRANCE));
+        store.setPosition(id, destination.getX(), destination.getY());
     }
 
     //========================= SETUP ============================
@@ -53,7 +65,7 @@ public class Player extends Agent {
      * between $5,000.00 and $10,000.00.
      */
     private void initBalance() {
-        this.balance = 10000;
+        store.setBalance(id, Money.ofDollars(10000));
     }
     //============================================================
 
@@ -66,68 +78,90 @@ public class Player extends Agent {
      * @param destination the destination of the agent
      * @param nextState   set the next state after reaching the destination
      */
-    private void setDirection(Vector2D destination, PlayerState nextState) {
-        Vector2D dir = Vector2D.getDirection(this.pos, destination);
-        float speed = 6f;
-        this.direction = dir.normalized();
-        this.direction.scale(speed);
-        this.destination = destination;
+    //Package level for MoveAllocationCheck, which walks a player on its own
+    void setDirection(Vector2D destination, PlayerState nextState) {
+        this.direction.set(destination.getX() - store.getX(id), destination.getY() - store.getY(id));
+        this.direction.normalize();
+        this.direction.scale(SPEED * casino.getWalkTick() / TICK);
+        this.destination.copy(destination);
         this.nextState = nextState;
     }
 
     /**
      * Updates the position to the players direction, and if the player
      * reached the destination it will switch the state to the nextState
-     * attribute
+     * attribute. Nothing is allocated, the position is moved in the store.
      */
-    private void move() {
-        agentState = PlayerState.WALKING;
+    //Package level for MoveAllocationCheck, which measures a single step
+    void move() {
+        setState(PlayerState.WALKING);
 
-        float distance = Vector2D.distance(this.pos, this.destination);
+        float dx = destination.getX() - store.getX(id);
+        float dy = destination.getY() - store.getY(id);
+        float distance = (float) Math.sqrt(dx * dx + dy * dy);
         float epsilon = 1f;
 
-        Vector2D newDirection = Vector2D.sub(this.destination, this.pos).normalized();
-        float dot = Vector2D.dot(newDirection, this.direction.normalized());
+        //Only the sign matters, the destination is behind once the player walked past it
+        float dot = dx * direction.getX() + dy * direction.getY();
 
-        if (distance < epsilon) this.agentState = this.nextState;
+        if (distance < epsilon) setState(this.nextState);
         else {
-            if (dot <= 0) this.agentState = this.nextState;
+            if (dot <= 0) setState(this.nextState);
         }
 
-        this.pos = Vector2D.add(pos, this.direction);
+        store.setPosition(id, store.getX(id) + direction.getX(), store.getY(id) + direction.getY());
+    }
+
+    /**
+     * @return the distance from the player to its destination
+     */
+    private float distanceToDestination() {
+        float dx = destination.getX() - store.getX(id);
+        float dy = destination.getY() - store.getY(id);
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Walks towards the destination. On a virtual clock there is nothing to
+     * animate, so the whole walk is covered in a single step that takes as
+     * long as the ticks it would have needed.
+     *
+     * @return the ms until the next step
+     */
+    private long walk() {
+        if (!casino.isEventDriven()) {
+            move();
+            return casino.getWalkTick();
+        }
+
+        long ticks = (long) Math.ceil(distanceToDestination() / SPEED);
+        store.setPosition(id, destination.getX(), destination.getY());
+        setState(this.nextState);
+        return Math.max(ticks, 1) * TICK;
     }
 
     /**
      * Set the destination to the lobby and assign IN_LOBBY as nextSate
      */
     private void goToLobby() {
-        setDirection(CasinoGUI.getDestination(CASINO_LOCATION.LOBBY), PlayerState.IN_LOBBY);
-        agentState = PlayerState.WALKING;
+        setDirection(CasinoFloor.getDestination(CASINO_LOCATION.LOBBY), PlayerState.IN_LOBBY);
+        setState(PlayerState.WALKING);
     }
 
     /**
      * Set the agent state to ENTERING and then goes to the lobby
      */
     private void enter() {
-        agentState = PlayerState.ENTERING;
+        setState(PlayerState.ENTERING);
         goToLobby();
-
-        while (agentState != nextState) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                killAgent();
-            }
-            move();
-        }
-
-        agentState = PlayerState.DECIDING;
     }
 
     /**
      * Echange all the chips if remaining and then leaves the casino.
      */
     private void leave() {
+        casino.getPlayerStates().move(getPlayerState(), null);
+        store.setOut(id);
         this.killAgent();
     }
 
@@ -137,11 +171,11 @@ public class Player extends Agent {
      */
     private void goToCashier() {
         if (this.attendingCashier == null) {
-            agentState = PlayerState.DECIDING;
+            setState(PlayerState.DECIDING);
         }
 
         setDirection(Vector2D.add(this.attendingCashier.getPos(), new Vector2D(-10, 0)), PlayerState.EXCHANGING);
-        agentState = PlayerState.WALKING;
+        setState(PlayerState.WALKING);
     }
 
     private void exchange(int chips) {
@@ -149,64 +183,78 @@ public class Player extends Agent {
         chipsToPay = chips;
 
 
-        setDirection(CasinoGUI.getDestination(CASINO_LOCATION.CASHIER_AREA), PlayerState.WAITING_CASHIER);
-        agentState = PlayerState.WALKING;
+        setDirection(CasinoFloor.getDestination(CASINO_LOCATION.CASHIER_AREA), PlayerState.WAITING_CASHIER);
+        setState(PlayerState.WALKING);
     }
 
-    private void exchange(float money) {
+    private void exchange(long money) {
         chipsToPay = 0;
         moneyToPay = money;
 
-        setDirection(CasinoGUI.getDestination(CASINO_LOCATION.CASHIER_AREA), PlayerState.WAITING_CASHIER);
-        agentState = PlayerState.WALKING;
+        setDirection(CasinoFloor.getDestination(CASINO_LOCATION.CASHIER_AREA), PlayerState.WAITING_CASHIER);
+        setState(PlayerState.WALKING);
 
     }
 
-    private void waitForCashier() {
-        this.attendingCashier = casino.findCashier(this);
-
-        if (this.attendingCashier == null) return;
+    /**
+     * Joins the queue of a cashier and waits for its turn, the cashier wakes
+     * up the player once the counter is released
+     *
+     * @return the ms until the next step, or PARK while waiting
+     */
+    private long waitForCashier() {
+        if (this.attendingCashier == null) {
+            this.attendingCashier = casino.findCashier(this);
 
-        bouncer = attendingCashier.getSemaphore();
-        try {
-            bouncer.acquire();
-            goToCashier();
+            if (this.attendingCashier == null) return TICK;
 
-        } catch (InterruptedException e) {
-            bouncer.release();
-            this.attendingCashier.removeFromQueue();
-            agentState = PlayerState.DECIDING;
+            bouncer = attendingCashier.getSemaphore();
         }
+
+        if (!bouncer.tryAcquire()) return PARK;
+
+        goToCashier();
+        return TICK;
     }
 
-    private void decide() throws InterruptedException {
-        Thread.sleep(1000);
+    /**
+     * Thinks for DECISION_TIME ms and then decides where to go next
+     *
+     * @return the ms until the next step
+     */
+    private long decide() {
+        if (!thinking) {
+            thinking = true;
+            return DECISION_TIME;
+        }
+        thinking = false;
 
         if (casino.isClosed()) {
             if (this.getChips() > 0) {
                 exchange(this.getChips());
             } else {
-                setDirection(CasinoGUI.getDestination(CASINO_LOCATION.ENTRANCE), PlayerState.LEAVING);
-                agentState = PlayerState.WALKING;
+                setDirection(CasinoFloor.getDestination(CASINO_LOCATION.ENTRANCE), PlayerState.LEAVING);
+                setState(PlayerState.WALKING);
             }
-            return;
+            return TICK;
         }
         float decision = rand.nextFloat();
         if (decision < 0.33) {
-            setDirection(CasinoGUI.getDestination(CASINO_LOCATION.GAME_AREA), PlayerState.IN_GAME_AREA);
-            agentState = PlayerState.WALKING;
-            return;
+            setDirection(CasinoFloor.getDestination(CASINO_LOCATION.GAME_AREA), PlayerState.IN_GAME_AREA);
+            setState(PlayerState.WALKING);
+            return TICK;
         }else if(decision < 0.66){
             goToLobby();
-            return;
+            return TICK;
         }
-        exchange(rand.nextFloat(100) + 100);
+        exchange(Money.ofDollars(rand.nextFloat(100) + 100));
+        return TICK;
     }
 
     private void findSlotMachine(){
         currentSlotMachine = casino.findSlotMachine(this);
         if(currentSlotMachine == null){
-            agentState = PlayerState.DECIDING;
+            setState(PlayerState.DECIDING);
             return;
         }
         walkToSlotMachine();
@@ -215,27 +263,27 @@ public class Player extends Agent {
     private void findCroupier() {
         currentCroupier = casino.findCroupier(this);
         if(currentCroupier == null){
-            agentState = PlayerState.DECIDING;
+            setState(PlayerState.DECIDING);
             return;
         }
 
         walkToCroupier();
     }
 
-    private void play() throws InterruptedException {
+    private void play() {
         if(casino.isClosed()){
-            agentState = PlayerState.DECIDING;
+            setState(PlayerState.DECIDING);
             return;
         }
         //boolean slotMachine = rand.nextBoolean();
         boolean playAlone = rand.nextBoolean();
 
         if (playAlone) {
-            if(getBalance() >= SlotMachine.PRICE) agentState = PlayerState.FINDING_SLOT_MACHINE;
-            else agentState = PlayerState.DECIDING;
+            if(getBalance() >= SlotMachine.PRICE) setState(PlayerState.FINDING_SLOT_MACHINE);
+            else setState(PlayerState.DECIDING);
         } else {
-            if(getChips() >= Croupier.COST) agentState = PlayerState.FINDING_TABLE;
-            else agentState = PlayerState.DECIDING;
+            if(getChips() >= Croupier.COST) setState(PlayerState.FINDING_TABLE);
+            else setState(PlayerState.DECIDING);
         }
     }
 
@@ -245,12 +293,12 @@ public class Player extends Agent {
      */
     private void walkToSlotMachine()  {
         if(currentSlotMachine == null){
-            agentState = PlayerState.DECIDING;
+            setState(PlayerState.DECIDING);
             return;
         }
         //Goes to the slot machine
         setDirection(Vector2D.add(currentSlotMachine.getPos(), new Vector2D(-10, 0)), PlayerState.IN_GAME_SLOT_MACHINE);
-        agentState = PlayerState.WALKING;
+        setState(PlayerState.WALKING);
     }
 
     /**
@@ -259,118 +307,131 @@ public class Player extends Agent {
      */
     private void walkToCroupier()  {
         if(currentCroupier == null){
-            agentState = PlayerState.DECIDING;
+            setState(PlayerState.DECIDING);
             return;
         }
 
         int place = currentCroupier.numPlayers();
 
         setDirection(Vector2D.add(currentCroupier.getPos(), new Vector2D(-10, 10 * place)), PlayerState.WAITING_GAME_START);
-        agentState = PlayerState.WALKING;
+        setState(PlayerState.WALKING);
     }
 
     /**
-     * Simulates a round with the current slot machine
+     * Simulates a round with the current slot machine, one phase per step
+     *
+     * @return the ms until the next step
      */
-    private void playSlotMachine(){
-        try {
-            currentSlotMachine.startGame(this);
-        } catch (InterruptedException | UnsupportedAudioFileException | LineUnavailableException | IOException e) {
-            throw new RuntimeException(e);
-        } finally {
-            currentSlotMachine.leaveMachine();
-            currentSlotMachine = null;
-            agentState = PlayerState.DECIDING;
-        }
-    }
-
-
-    private void playCroupier() {
-        currentCroupier.getResults(this);
-        currentCroupier = null;
-        agentState = PlayerState.DECIDING;
-        
-    }
-
-    private void waitGameToStart(){
-        if(casino.isClosed()) 
-            agentState = PlayerState.DECIDING;
+    private long playSlotMachine(){
+        long delay = currentSlotMachine.play(this);
+        if (delay != SlotMachine.GAME_OVER) return delay;
 
+        currentSlotMachine.leaveMachine();
+        currentSlotMachine = null;
+        setState(PlayerState.DECIDING);
+        return TICK;
     }
 
 
-    public void gameStarted() {
-        //agentState = PlayerState.IN_GAME;
-    }
-
-    public void gameEnded() {
-        agentState = PlayerState.WAITING_GAME_END;
+    /**
+     * Sleeps at the table until the croupier wakes the player up, once when
+     * the round starts and once when it has been settled
+     *
+     * @return the ms until the next step
+     */
+    private long waitForRound() {
+        switch (currentCroupier.getPhase(tableRound)) {
+            case PLAYING -> setState(PlayerState.IN_GAME_CROUPIER);
+            case SETTLED -> {
+                currentCroupier = null;
+                setState(PlayerState.DECIDING);
+                return TICK;
+            }
+        }
+        return PARK;
     }
 
-    public void resultsApplied() throws InterruptedException {
-        agentState = PlayerState.DECIDING;
+    /**
+     * Called by the croupier when the player sits down at its table
+     *
+     * @param round the round the player is betting on
+     */
+    void joinRound(int round) {
+        this.tableRound = round;
     }
 
     // =============================== INTERACTIONS ====================================
 
     /**
-     * Change the state of the player to a certain state
+     * Change the state of the player to a certain state, and moves the
+     * player to it in the casino's counters
      *
      * @param state the state to be changed
      */
     public void setState(PlayerState state) {
-        this.agentState = state;
+        PlayerState previous = store.getState(id);
+        if (previous == state) return;
+        store.setState(id, state);
+        casino.getPlayerStates().move(previous, state);
     }
 
-    public void excahngeWithCashier() {
-        try {
-//            System.err.println("Time To Pay -> chips: " + chipsToPay + " or money: " + moneyToPay);
-            if (moneyToPay > 0) {
-                attendingCashier.exchange(moneyToPay, this);
-                moneyToPay = 0;
-            } else {
-                attendingCashier.exchange(chipsToPay, this);
-                chipsToPay = 0;
-            }
-        } catch (InterruptedException | UnsupportedAudioFileException | LineUnavailableException | IOException ie) {
-            System.out.println(ie.getMessage());
-        } finally {
-            if (!casino.isClosed()) {
-                agentState = PlayerState.DECIDING;
+    public PlayerState getPlayerState() {
+        return store.getState(id);
+    }
 
-            } else {
-                setDirection(CasinoGUI.getDestination(CASINO_LOCATION.ENTRANCE), PlayerState.LEAVING);
-                agentState = PlayerState.WALKING;
-            }
-            bouncer.release();
+    /**
+     * Exchanges with the attending cashier, the first step starts the exchange
+     * and the step EXCHANGE_TIME ms later completes it and frees the counter
+     *
+     * @return the ms until the next step
+     */
+    public long excahngeWithCashier() {
+        if (!exchanging) {
+//            System.err.println("Time To Pay -> chips: " + chipsToPay + " or money: " + moneyToPay);
+            exchanging = moneyToPay > 0
+                    ? attendingCashier.exchange(moneyToPay, this)
+                    : attendingCashier.exchange(chipsToPay, this);
+            if (exchanging) return Cashier.EXCHANGE_TIME;
+        } else {
+            exchanging = false;
+            if (moneyToPay > 0) attendingCashier.completeExchange(moneyToPay, this);
+            else attendingCashier.completeExchange(chipsToPay, this);
         }
 
+        moneyToPay = 0;
+        chipsToPay = 0;
+        if (!casino.isClosed()) {
+            setState(PlayerState.DECIDING);
+
+        } else {
+            setDirection(CasinoFloor.getDestination(CASINO_LOCATION.ENTRANCE), PlayerState.LEAVING);
+            setState(PlayerState.WALKING);
+        }
+        attendingCashier.release(this);
+        attendingCashier = null;
+        return TICK;
     }
 
     /**
      * Charge a value of chips to the player, if the player does not
-     * have the enough amount then throws an exception.
+     * have the enough amount then nothing is charged.
      *
      * @param chips The amount of chips to be charged
-     * @throws Exception
+     * @return false if the player does not have enough chips
      */
-    public void charge(int chips) throws Exception {
-        if (chips > getChips()) throw new Exception("Not enough chips");
-
-        this.chips -= chips;
+    public boolean charge(int chips) {
+        return store.chargeChips(id, chips);
     }
 
     /**
      * Charge a value of money to the player, if the player does not
-     * have the enough funds then throws an exception.
+     * have the enough funds then nothing is charged.
      *
-     * @param money The amount of money to be charged
-     * @throws Exception
+     * @param money The amount of money to be charged, in cents
+     * @return false if the player does not have enough funds
      */
-    public void charge(float money) throws Exception {
-        if (money > getBalance()) throw new Exception("Not enough funds");
-
-        this.balance -= money;
+    public boolean charge(long money) {
+        return store.chargeBalance(id, money);
     }
 
     /**
@@ -379,110 +440,130 @@ public class Player extends Agent {
      * @param chips The amount of chips to be added
      */
     public void pay(int chips) {
-        this.chips += chips;
+        store.addChips(id, chips);
     }
 
     /**
      * Increase the amount of funds that the player has in their balance
      *
-     * @param money the amount of money to be added
+     * @param money the amount of money to be added, in cents
      */
-    public void pay(float money) {
-        this.balance += money;
+    public void pay(long money) {
+        store.addBalance(id, money);
     }
 
     //=====================================================================================
 
     //GETTERS
+    /**
+     * @return a copy of the player's position, the position itself lives in the store
+     */
+    @Override
+    public Vector2D getPos() {
+        return new Vector2D(store.getX(id), store.getY(id));
+    }
+
+    public int getPlayerId() {
+        return this.id;
+    }
+
     public Agent getCurrentAgent() {
         return attendingCashier != null ? attendingCashier
                 : currentCroupier != null ? currentCroupier
                 : currentSlotMachine;
     }
-    public float getBalance() {
-        return this.balance;
+    /**
+     * @return the player's money, in cents
+     */
+    public long getBalance() {
+        return store.getBalance(id);
     }
 
     public int getChips() {
-        return this.chips;
+        return store.getChips(id);
     }
 
     //SETTERS
     public void setChips(int newChips) {
-        chips = newChips;
-    }
-
-    public void setInGameState() {
-        //agentState = PlayerState.IN_GAME;
+        store.setChips(id, newChips);
     }
 
     /**
      * Controls the states of the player
+     *
+     * @return the ms until the next step
      */
-    private void execute() throws InterruptedException {
+    @Override
+    public long execute() {
 //        System.err.println("@Execute " + getAgentState());
-        switch (agentState) {
-            case IN_LOBBY, DECIDING -> decide();
+        long delay = TICK;
+        switch (getPlayerState()) {
+            case ENTERING -> enter();
+            case IN_LOBBY, DECIDING -> delay = decide();
 
             case FINDING_SLOT_MACHINE -> findSlotMachine();
             case FINDING_TABLE -> findCroupier();
 
             case IN_GAME_AREA -> play();
-            case WALKING -> move();
+            case WALKING -> delay = walk();
 
-            case WAITING_CASHIER -> waitForCashier();
-            case EXCHANGING -> excahngeWithCashier();
+            case WAITING_CASHIER -> delay = waitForCashier();
+            case EXCHANGING -> delay = excahngeWithCashier();
             case LEAVING -> leave();
 
-            case IN_GAME_SLOT_MACHINE -> playSlotMachine();
+            case IN_GAME_SLOT_MACHINE -> delay = playSlotMachine();
 
-            case WAITING_GAME_START -> waitGameToStart();
-            case WAITING_GAME_END -> playCroupier();
+            case WAITING_GAME_START, IN_GAME_CROUPIER -> delay = waitForRound();
         }
 
-        if(Vector2D.distance(pos, this.destination) > 1 && agentState != PlayerState.WALKING) {
-            this.pos = destination;
+        if(distanceToDestination() > 1 && getPlayerState() != PlayerState.WALKING) {
+            store.setPosition(id, destination.getX(), destination.getY());
         }
-        Thread.sleep(100);
+        return delay;
     }
 
     @Override
-    public void run() {
-        this.enter();
-        while (isAgentAlive()) {
-            try {
-                execute();
-            } catch (InterruptedException ie) {
-            }
+    public String getAgentState() {
+        PlayerState state = getPlayerState();
+        if (!isAgentAlive() || state == null) return "OUT";
 
-        }
+        return state.toString();
     }
 
     @Override
-    public String getAgentState() {
-        if (!isAgentAlive()) return "OUT";
-
-        return agentState.toString();
+    public PlayerState getAgentStateValue() {
+        return isAgentAlive() ? getPlayerState() : null;
     }
 
     @Override
     public void stopWork() {
-        this.killAgent();
+        leave();
     }
 
     @Override
     public void startWork() {
-        this.agentState = PlayerState.ENTERING;
+        setState(PlayerState.ENTERING);
         this.startAgent();
     }
 
     @Override
-    public void draw(Graphics g) {
-        switch (agentState) {
-            case DECIDING -> g.setColor(Color.CYAN);
-            case IN_GAME_CROUPIER, IN_GAME_SLOT_MACHINE, WAITING_GAME_START, WAITING_GAME_END -> g.setColor(Color.ORANGE);
-            default -> g.setColor(Color.WHITE);
-        }
-        g.fillArc((int) pos.getX(), (int) pos.getY(), 10, 10, 0, 360);
+    public void draw(Graphics g, FrameSnapshot frame, int index, float x, float y) {
+        PlayerState state = (PlayerState) frame.getState(index);
+        if (state == null) return;
+        Image stamp = switch (state) {
+            case DECIDING -> Stamps.DECIDING;
+            case IN_GAME_CROUPIER, IN_GAME_SLOT_MACHINE, WAITING_GAME_START, WAITING_GAME_END -> Stamps.PLAYING;
+            default -> Stamps.WALKING;
+        };
+        g.drawImage(stamp, (int) x, (int) y, null);
+    }
+
+    /**
+     * The dots of the players, drawn once the first time a player is drawn
+     */
+    private static class Stamps {
+        static final Image DECIDING = SpriteCache.dot(Color.CYAN, 10);
+        static final Image PLAYING = SpriteCache.dot(Color.ORANGE, 10);
+        static final Image WALKING = SpriteCache.dot(Color.WHITE, 10);
     }
 }
@@ -0,0 +1,84 @@
+package Simulator;
+
+/**
+ * State of every player of a casino, indexed by the player's id. The players
+ * read and write their own slot, while the views can scan a whole column
+ * without touching the Player objects.
+ */
+public interface PlayerStore {
+    /**
+     * State of the players that already left the casino
+     */
+    byte OUT = -1;
+
+    /**
+     * Takes the next free slot, the players are added before the casino opens
+     *
+     * @return the id of the new player
+     */
+    int add();
+
+    int size();
+
+    float getX(int id);
+    float getY(int id);
+    void setPosition(int id, float x, float y);
+
+    /**
+     * @return the player's money, in cents
+     */
+    long getBalance(int id);
+    void setBalance(int id, long balance);
+
+    /**
+     * Adds money to the player's balance atomically
+     *
+     * @param amount the cents to be added
+     */
+    void addBalance(int id, long amount);
+
+    /**
+     * Takes money from the player's balance atomically, only if there is enough
+     *
+     * @param amount the cents to be taken
+     * @return false if the player does not have enough funds
+     */
+    boolean chargeBalance(int id, long amount);
+
+    int getChips(int id);
+    void setChips(int id, int chips);
+
+    /**
+     * Adds chips to the player atomically
+     */
+    void addChips(int id, int chips);
+
+    /**
+     * Takes chips from the player atomically, only if there are enough
+     *
+     * @return false if the player does not have enough chips
+     */
+    boolean chargeChips(int id, int chips);
+
+    /**
+     * @return the state of the player, or null once the player left
+     */
+    PlayerState getState(int id);
+    void setState(int id, PlayerState state);
+    void setOut(int id);
+
+    /**
+     * @return the money of all the players, in cents
+     */
+    long totalBalance();
+
+    /**
+     * @return the chips of all the players
+     */
+    long totalChips();
+
+    /**
+     * @return the number of players in each state, indexed by the state's ordinal
+     */
+    int[] countStates();
+}
@@ -0,0 +1,66 @@
+package Simulator;
+
+/**
+ * Simulated time of a casino whose agents run on their own threads. The
+ * simulated time runs timeScale times faster than the wall clock, and the
+ * time scale can be changed while the agents are sleeping on it.
+ */
+public class SimulationClock {
+    //STATIC ATTRIBUTES
+    public static final double REAL_TIME = 1;
+    /**
+     * Fastest speed the agents' threads can keep up with, anything faster than
+     * this has to run on the EventScheduler
+     */
+    public static final double MAX_SPEED = 1000;
+    /**
+     * Longest a sleeper waits before checking for a new time scale, in ns
+     */
+    private static final long MAX_NAP = 100_000_000;
+
+    /**
+     * Simulated time at the last time scale change, so every change only
+     * affects the time from then on
+     */
+    private record Rate(long simBase, long realBase, double timeScale) {}
+
+    private volatile Rate rate = new Rate(0, System.nanoTime(), REAL_TIME);
+
+    /**
+     * @return the simulated ms since the clock was created
+     */
+    public long now() {
+        Rate current = rate;
+        return current.simBase() + (long) ((System.nanoTime() - current.realBase()) * current.timeScale() / 1_000_000);
+    }
+
+    /**
+     * Sleeps the calling thread for an amount of simulated time, following
+     * any change to the time scale made while sleeping
+     *
+     * @param ms the simulated ms to sleep
+     */
+    public void sleep(long ms) throws InterruptedException {
+        long deadline = now() + ms;
+        long remaining;
+
+        while ((remaining = deadline - now()) > 0) {
+            long nanos = Math.min((long) (remaining * 1_000_000 / rate.timeScale()), MAX_NAP);
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+    }
+
+    /**
+     * Changes how many times faster than the wall clock the simulated time runs
+     *
+     * @param timeScale the new time scale, between REAL_TIME and MAX_SPEED
+     */
+    public synchronized void setTimeScale(double timeScale) {
+        double scale = Math.max(REAL_TIME, Math.min(timeScale, MAX_SPEED));
+        rate = new Rate(now(), System.nanoTime(), scale);
+    }
+
+    public double getTimeScale() {
+        return rate.timeScale();
+    }
+}
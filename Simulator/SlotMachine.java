@@ -3,66 +3,98 @@ package Simulator;
 import Agent.Agent;
 import Calc.Vector2D;
 
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
 import java.awt.*;
 import java.io.File;
-import java.io.IOException;
 import java.util.Random;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SlotMachine extends Agent {
     //STATIC ATTRIBUTES
-    public static final float PRICE = 1.05f;
+    /**
+     * Price of a game, in cents
+     */
+    public static final long PRICE = 105;
+    public static final long SPIN_TIME = 500;
+    public static final long GAME_OVER = -1;
 
     //PRIVATE ATTRIBUTES
-    private SlotMachineSate agentState;
-    private Player activePlayer;
+    //Null once the machine is closed
+    private final AtomicReference<SlotMachineSate> agentState = new AtomicReference<>();
+    private volatile Player activePlayer;
     private final Random rand = new Random();
-    private boolean available = true;
-    private ReentrantLock lock = new ReentrantLock();
+    private volatile boolean available = true;
+    private float result;
+    private final HouseLedger.Account account;
 
 
     protected SlotMachine(String name, Casino casino, Vector2D position) {
         super(name, casino, new File("Assets/slotmachine.png"));
         this.pos = position;
-        agentState = SlotMachineSate.AVAILABLE;
+        this.account = casino.getLedger().openSlotMachineAccount();
+        casino.getSlotMachineStates().open(agentState, SlotMachineSate.AVAILABLE);
+    }
+
+    /**
+     * Changes the state of the machine, it is available only when nobody took it.
+     * The state is swapped atomically so the casino's counters stay exact, and
+     * a closed machine stays closed.
+     * @param newState the new state of the machine
+     */
+    private void changeState(SlotMachineSate newState) {
+        if (!casino.getSlotMachineStates().change(agentState, newState)) return;
+        available = newState == SlotMachineSate.AVAILABLE;
     }
 
 
     //Interaction
-    public synchronized void startGame(Player player) throws InterruptedException, UnsupportedAudioFileException, LineUnavailableException, IOException {
-        try{
-            player.charge(SlotMachine.PRICE);
-        }catch (Exception e){ //not enough funds
-            System.out.println("Not enough funds: " + e.getMessage());
-            return;
-        }
-        agentState = SlotMachineSate.IN_GAME;
-        float odds = rand.nextFloat();
-        float result = 0.0f;
+    /**
+     * Advances the round the player is playing by one phase: charging the
+     * player, spinning the reels and paying the result.
+     * @param player the agent playing the machine
+     * @return the ms until the next phase is due, or GAME_OVER once the round is finished
+     */
+    public synchronized long play(Player player) {
+        SlotMachineSate state = agentState.get();
+        if (state == null) return GAME_OVER; //closed
+
+        switch (state) {
+            case TAKEN -> {
+                if (!player.charge(SlotMachine.PRICE)) return GAME_OVER; //not enough funds
+                account.receive(SlotMachine.PRICE);
+                changeState(SlotMachineSate.IN_GAME);
+                return SPIN_TIME;
+            }
 
-        Thread.sleep(500);
+            case IN_GAME -> {
+                float odds = rand.nextFloat();
 
-        if(odds <= 0.01){
-            result = 2.0f;
-            agentState = SlotMachineSate.JACKPOT_3;
-        }
-        else if(odds <= 0.15){
-            result = 1.5f;
-            agentState = SlotMachineSate.JACKPOT_2;
-        }
-        else if(odds <= 0.4){
-            result = 1.25f;
-            agentState = SlotMachineSate.JACKPOT_1;
-        }
-        else{
-            agentState = SlotMachineSate.LOSE;
-        }
+                if(odds <= 0.01){
+                    result = 2.0f;
+                    changeState(SlotMachineSate.JACKPOT_3);
+                }
+                else if(odds <= 0.15){
+                    result = 1.5f;
+                    changeState(SlotMachineSate.JACKPOT_2);
+                }
+                else if(odds <= 0.4){
+                    result = 1.25f;
+                    changeState(SlotMachineSate.JACKPOT_1);
+                }
+                else{
+                    result = 0.0f;
+                    changeState(SlotMachineSate.LOSE);
+                }
+                return SPIN_TIME;
+            }
 
-        Thread.sleep(500);
-        player.pay(SlotMachine.PRICE * result);
-        Casino.playSound("Sounds/SlotMachine-Done.wav");
+            default -> {
+                long winnings = Math.round(SlotMachine.PRICE * result);
+                player.pay(winnings);
+                account.pay(winnings);
+                casino.playSound(SoundMixer.Sound.SLOT_MACHINE);
+                return GAME_OVER;
+            }
+        }
     }
 
     //GETTERS
@@ -75,62 +107,69 @@ public class SlotMachine extends Agent {
         return this.available;
     }
 
-    public void takeMachine(Player p){
-        lock.lock();
+    /**
+     * Hands the machine to a player, only called by the casino once it claimed
+     * the machine from its free machines
+     * @param p the player taking the machine
+     */
+    void takeMachine(Player p){
         activePlayer = p;
-        this.available = false;
-        agentState = SlotMachineSate.TAKEN;
-        lock.unlock();
+        changeState(SlotMachineSate.TAKEN);
     }
 
+    /**
+     * Frees the machine and gives it back to the casino for the next player
+     */
     public void leaveMachine(){
-        lock.lock();
         activePlayer = null;
-        this.available = true;
-        agentState = SlotMachineSate.AVAILABLE;
-        lock.unlock();
+        changeState(SlotMachineSate.AVAILABLE);
+        casino.releaseSlotMachine(this);
     }
 
     @Override
     public String getAgentState() {
-        if(!isAgentAlive()) return "CLOSED";
-        return agentState.toString();
+        SlotMachineSate state = agentState.get();
+        if(!isAgentAlive() || state == null) return "CLOSED";
+        return state.toString();
     }
 
     @Override
-    public void run(){
-        while (isAgentAlive() && !isInterrupted()) {
-            switch (agentState){
-                case CLOSING -> {
-                }
-
-                case AVAILABLE -> this.available = true;
+    public Enum<?> getAgentStateValue() {
+        return isAgentAlive() ? agentState.get() : null;
+    }
 
-                default -> this.available = false;
-            }
-        }
+    /**
+     * The slot machine has no work of its own, its rounds are played by the
+     * players, so its thread stays parked until the machine is closed
+     */
+    @Override
+    public long execute() {
+        return PARK;
     }
 
     @Override
     public void stopWork() {
-        this.agentState = SlotMachineSate.CLOSING;
+        changeState(SlotMachineSate.CLOSING);
         this.killAgent();
+        casino.getSlotMachineStates().close(agentState);
     }
 
     @Override
     public void startWork() {
-        this.agentState = SlotMachineSate.AVAILABLE;
+        casino.getSlotMachineStates().open(agentState, SlotMachineSate.AVAILABLE);
+        available = true;
         this.startAgent();
     }
 
     @Override
-    public void draw(Graphics g) {
+    public void draw(Graphics g, FrameSnapshot frame, int index, float x, float y) {
+        Image image = getImage(64, 64);
         if (image == null) {
             g.setColor(new Color(255, 150, 250));
-            g.fillArc((int) pos.getX(), (int) pos.getY(), 10, 10, 0, 360);
+            g.fillArc((int) x, (int) y, 10, 10, 0, 360);
         }
         else {
-            g.drawImage(image, (int) pos.getX(), (int) pos.getY(), 64, 64, null);
+            g.drawImage(image, (int) x, (int) y, null);
         }
     }
 }
@@ -0,0 +1,149 @@
+package Simulator;
+
+import javax.sound.sampled.*;
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays the casino's sounds on a single mixer thread. The sounds are decoded
+ * once into a small pool of clips each, and the agents only raise a flag, so
+ * a game never waits for the audio device. A burst of the same sound while
+ * it is waiting to be played is merged into one, and a sound whose clips are
+ * all playing is dropped.
+ * <p>
+ * Headless runs, and machines without an audio device, get a silent mixer
+ * that ignores every sound.
+ */
+public class SoundMixer {
+    public enum Sound {
+        CASHIER("Sounds/Cashier-done.wav"),
+        CROUPIER("Sounds/Croupier-done.wav"),
+        SLOT_MACHINE("Sounds/SlotMachine-Done.wav");
+
+        private final String file;
+
+        Sound(String file) {
+            this.file = file;
+        }
+    }
+
+    //Clips of each sound that can play at the same time
+    private static final int VOICES = 4;
+    private static final Sound[] SOUNDS = Sound.values();
+
+    /**
+     * Mixer that ignores every sound
+     */
+    public static final SoundMixer SILENT = new SoundMixer(null);
+
+    private final Clip[][] clips;
+    private final int[] nextVoice = new int[SOUNDS.length];
+    //Times each sound was asked for since the mixer last played it
+    private final AtomicIntegerArray pending = new AtomicIntegerArray(SOUNDS.length);
+    private final Thread mixer;
+    private volatile boolean open = true;
+
+    private SoundMixer(Clip[][] clips) {
+        this.clips = clips;
+        if (clips == null) {
+            this.mixer = null;
+            return;
+        }
+
+        this.mixer = new Thread(this::mix);
+        this.mixer.setName("Sound Mixer");
+        this.mixer.setDaemon(true);
+        this.mixer.start();
+    }
+
+    /**
+     * Decodes every sound into its clips, or gives the silent mixer if there
+     * is no display or no audio device
+     */
+    public static SoundMixer open() {
+        if (GraphicsEnvironment.isHeadless()) return SILENT;
+
+        Clip[][] clips = new Clip[SOUNDS.length][VOICES];
+        try {
+            for (Sound sound : SOUNDS) {
+                AudioFormat format;
+                byte[] data;
+                try (AudioInputStream stream = AudioSystem.getAudioInputStream(new File(sound.file))) {
+                    format = stream.getFormat();
+                    data = stream.readAllBytes();
+                }
+                for (int v = 0; v < VOICES; v++) {
+                    Clip clip = AudioSystem.getClip();
+                    clip.open(format, data, 0, data.length);
+                    clips[sound.ordinal()][v] = clip;
+                }
+            }
+        } catch (UnsupportedAudioFileException | LineUnavailableException | IOException | IllegalArgumentException e) {
+            System.out.println("Couldn't open the sounds, the casino will be silent: " + e.getMessage());
+            close(clips);
+            return SILENT;
+        }
+        return new SoundMixer(clips);
+    }
+
+    /**
+     * Asks the mixer to play a sound, it never blocks
+     *
+     * @param sound the sound to be played
+     */
+    public void play(Sound sound) {
+        if (clips == null || !open) return;
+        //Only the first request of a burst has to wake the mixer
+        if (pending.getAndIncrement(sound.ordinal()) == 0) LockSupport.unpark(mixer);
+    }
+
+    /**
+     * Stops the mixer and closes the clips
+     */
+    public void close() {
+        if (clips == null) return;
+        open = false;
+        LockSupport.unpark(mixer);
+    }
+
+    private void mix() {
+        while (open) {
+            boolean played = false;
+            for (Sound sound : SOUNDS) {
+                if (pending.getAndSet(sound.ordinal(), 0) > 0) {
+                    start(sound);
+                    played = true;
+                }
+            }
+            if (!played) LockSupport.park(this);
+        }
+        close(clips);
+    }
+
+    /**
+     * Starts a free clip of the sound, the sound is dropped if every clip is playing
+     */
+    private void start(Sound sound) {
+        Clip[] voices = clips[sound.ordinal()];
+        for (int v = 0; v < VOICES; v++) {
+            Clip clip = voices[(nextVoice[sound.ordinal()] + v) % VOICES];
+            if (clip.isRunning()) continue;
+
+            nextVoice[sound.ordinal()] = (nextVoice[sound.ordinal()] + v + 1) % VOICES;
+            clip.setFramePosition(0);
+            clip.start();
+            return;
+        }
+    }
+
+    private static void close(Clip[][] clips) {
+        for (Clip[] voices : clips) {
+            for (Clip clip : voices) {
+                if (clip != null) clip.close();
+            }
+        }
+    }
+}
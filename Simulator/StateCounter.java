@@ -0,0 +1,91 @@
+package Simulator;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of agents of one kind in each state, kept up to date by the agents
+ * themselves on every state change. Reading the totals costs one sum per
+ * state, however many agents there are. The counters are LongAdders, agents
+ * changing state at the same time add to different cells instead of
+ * fighting over one.
+ *
+ * @param <E> the states of the agents
+ */
+public class StateCounter<E extends Enum<E>> {
+    private final Class<E> type;
+    private final EnumMap<E, LongAdder> counts;
+
+    public StateCounter(Class<E> type) {
+        this.type = type;
+        this.counts = new EnumMap<>(type);
+        for (E state : type.getEnumConstants()) counts.put(state, new LongAdder());
+    }
+
+    /**
+     * Moves an agent from one state to another
+     *
+     * @param from the state the agent leaves, or null if it wasn't counted
+     * @param to   the state the agent enters, or null if it is no longer counted
+     */
+    public void move(E from, E to) {
+        if (from == to) return;
+        if (from != null) counts.get(from).decrement();
+        if (to != null) counts.get(to).increment();
+    }
+
+    /**
+     * Swaps the state of an agent and moves it in the counters. A closed
+     * agent, whose state is null, stays closed.
+     *
+     * @param state the state of the agent
+     * @param to    the new state
+     * @return false if the agent is closed
+     */
+    public boolean change(AtomicReference<E> state, E to) {
+        E from;
+        do {
+            from = state.get();
+            if (from == null) return false;
+        } while (!state.compareAndSet(from, to));
+        move(from, to);
+        return true;
+    }
+
+    /**
+     * Sets the state of an agent, counting it again if it was closed
+     */
+    public void open(AtomicReference<E> state, E to) {
+        move(state.getAndSet(to), to);
+    }
+
+    /**
+     * Closes an agent, it is no longer counted
+     */
+    public void close(AtomicReference<E> state) {
+        move(state.getAndSet(null), null);
+    }
+
+    /**
+     * @return the number of agents in the state
+     */
+    public long get(E state) {
+        return counts.get(state).sum();
+    }
+
+    /**
+     * @return the number of agents in each state, read one state after the other
+     */
+    public Map<E, Long> snapshot() {
+        Map<E, Long> snapshot = new EnumMap<>(type);
+        counts.forEach((state, count) -> snapshot.put(state, count.sum()));
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -0,0 +1,126 @@
+package Utils;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Images shared by the whole process, keyed by the path of their asset. Each
+ * asset is decoded once, the first time it is asked for, and every agent with
+ * the same asset draws the same image. Stamps are copies already scaled to the
+ * size they are drawn at, so a frame only copies their pixels.
+ */
+public class SpriteCache {
+    private static final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> SPRITES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, BufferedImage> STAMPS = new ConcurrentHashMap<>();
+
+    private SpriteCache() {}
+
+    /**
+     * Starts decoding the assets in the background, each one on its own task,
+     * so they are ready by the time they are drawn
+     *
+     * @param assets the image files to be loaded
+     */
+    public static void preload(File... assets) {
+        for (File asset : assets) load(asset);
+    }
+
+    /**
+     * @param asset the image file
+     * @return the image, waiting for it if it is still being decoded, or null if it couldn't be loaded
+     */
+    public static BufferedImage get(File asset) {
+        return load(asset).join();
+    }
+
+    /**
+     * @param asset  the image file
+     * @param width  the width the image is drawn at
+     * @param height the height the image is drawn at
+     * @return the image scaled to that size, or null if it couldn't be loaded.
+     * It is typed as an Image, so the agents that draw it can be loaded
+     * without the java.awt.image classes.
+     */
+    public static Image get(File asset, int width, int height) {
+        BufferedImage image = get(asset);
+        if (image == null) return null;
+
+        String key = key(asset) + "@" + width + "x" + height;
+        return STAMPS.computeIfAbsent(key, k -> scale(image, width, height));
+    }
+
+    /**
+     * @param color the colour of the dot
+     * @param size  the diameter of the dot
+     * @return a round dot of that colour, drawn once and shared
+     */
+    public static BufferedImage dot(Color color, int size) {
+        String key = "dot#" + Integer.toHexString(color.getRGB()) + "@" + size;
+        return STAMPS.computeIfAbsent(key, k -> {
+            BufferedImage dot = createImage(size, size, Transparency.BITMASK);
+            Graphics2D g = dot.createGraphics();
+            try {
+                g.setColor(color);
+                g.fillArc(0, 0, size, size, 0, 360);
+            } finally {
+                g.dispose();
+            }
+            return dot;
+        });
+    }
+
+    private static String key(File asset) {
+        return asset.toPath().normalize().toString();
+    }
+
+    private static CompletableFuture<BufferedImage> load(File asset) {
+        return SPRITES.computeIfAbsent(key(asset), path -> CompletableFuture.supplyAsync(() -> decode(asset)));
+    }
+
+    private static BufferedImage decode(File asset) {
+        try {
+            BufferedImage image = ImageIO.read(asset);
+            return image == null ? null : toCompatible(image);
+        } catch (IOException e) {
+            System.out.println("Couldn't load Image Asset " + asset + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Copies the image into the screen's pixel format, so drawing it doesn't
+     * need a conversion on every frame
+     */
+    private static BufferedImage toCompatible(BufferedImage image) {
+        if (GraphicsEnvironment.isHeadless()) return image;
+        if (image.getColorModel().equals(screen().getColorModel(image.getTransparency()))) return image;
+        return scale(image, image.getWidth(), image.getHeight());
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = createImage(width, height, image.getTransparency());
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private static BufferedImage createImage(int width, int height, int transparency) {
+        if (!GraphicsEnvironment.isHeadless()) return screen().createCompatibleImage(width, height, transparency);
+        int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        return new BufferedImage(width, height, type);
+    }
+
+    private static GraphicsConfiguration screen() {
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+}
@@ -0,0 +1,65 @@
+package Simulator;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Dispatches players to the cashiers from several threads with every policy.
+ * Each thread keeps a few of its players in the queues and lets them leave
+ * after a random number of later dispatches. The spread between the longest
+ * and the shortest queue, sampled along the run, stands for the waiting
+ * time: the lower, the more even the queues.
+ * <p>
+ * Usage: java Simulator.DispatchBench [threads] [cashiers] [dispatches per thread]
+ */
+public class DispatchBench {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int cashiers = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int dispatches = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+
+        for (CashierDispatcher.Policy policy : CashierDispatcher.Policy.values()) {
+            Casino casino = new Casino(threads * 4, cashiers, 0, 0, 1, 0);
+            casino.setCashierPolicy(policy);
+            List<Player> players = casino.getPlayers();
+            long[] spread = new long[2];
+
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                workers[t] = new Thread(() -> {
+                    ArrayDeque<Cashier> cashierQueue = new ArrayDeque<>();
+                    ArrayDeque<Player> playerQueue = new ArrayDeque<>();
+                    Random random = new Random(id);
+                    for (int d = 0; d < dispatches; d++) {
+                        Player player = players.get(id * 4 + (d & 3));
+                        cashierQueue.add(casino.findCashier(player));
+                        playerQueue.add(player);
+                        while (cashierQueue.size() > random.nextInt(8)) {
+                            cashierQueue.poll().removeFromQueue(playerQueue.poll());
+                        }
+                        if (id == 0 && (d & 1023) == 0) sample(casino, spread);
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) worker.join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%-20s %.0f dispatches/s, mean queue spread %.2f%n",
+                    policy, threads * dispatches / seconds, (double) spread[0] / spread[1]);
+        }
+    }
+
+    private static void sample(Casino casino, long[] spread) {
+        int shortest = Integer.MAX_VALUE, longest = 0;
+        for (Cashier cashier : casino.getCashiers()) {
+            shortest = Math.min(shortest, cashier.getQueueSize());
+            longest = Math.max(longest, cashier.getQueueSize());
+        }
+        spread[0] += longest - shortest;
+        spread[1]++;
+    }
+}
@@ -0,0 +1,55 @@
+package Simulator;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+
+/**
+ * Opens a casino on platform threads or on virtual threads and reports how
+ * long opening took, how many JVM threads it needed and the memory in use a
+ * few seconds later. Thread stacks are outside the heap, so the resident set
+ * is shown too where the OS reports it. Also checks that a pool too small for the agents is refused.
+ * <p>
+ * Usage: java Simulator.ExecutorBench [players] [platform|virtual]
+ */
+public class ExecutorBench {
+    public static void main(String[] args) throws InterruptedException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        boolean virtual = args.length > 1 && args[1].equals("virtual");
+
+        Casino casino = new Casino(players, 3, 3, 3, 3, 0);
+        try {
+            casino.setExecutor(Executors.newFixedThreadPool(4));
+            System.out.println("FAILED: a 4 thread pool was accepted for " + casino.getAgents().size() + " agents");
+            System.exit(1);
+        } catch (IllegalArgumentException expected) {
+        }
+        if (virtual) casino.useVirtualThreads();
+
+        long start = System.nanoTime();
+        casino.open();
+        long openTime = (System.nanoTime() - start) / 1_000_000;
+
+        Thread.sleep(5000);
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%d players on %s threads: open %d ms, %d JVM threads, heap %d MB, RSS %s%n",
+                players, virtual ? "virtual" : "platform", openTime,
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20, residentSet());
+        System.exit(0);
+    }
+
+    private static String residentSet() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) return line.substring(6).trim();
+            }
+        } catch (IOException e) {
+            //Not Linux
+        }
+        return "unknown";
+    }
+}
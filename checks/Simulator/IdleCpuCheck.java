@@ -0,0 +1,49 @@
+package Simulator;
+
+import Agent.Agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Opens a casino with no players and checks that its cashiers and slot
+ * machines use next to no CPU while they have nobody to attend. Their
+ * threads should stay parked, they are read through the ThreadMXBean.
+ * <p>
+ * Usage: java Simulator.IdleCpuCheck [seconds]
+ */
+public class IdleCpuCheck {
+    //CPU the idle agents may use together over the whole run, in ms
+    private static final long MAX_IDLE_CPU = 50;
+
+    public static void main(String[] args) throws InterruptedException {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+
+        Casino casino = new Casino(0, 3, 3, 0, 3, 0);
+        casino.open();
+        Thread.sleep(1000);
+
+        List<Agent> idle = new ArrayList<>(casino.getCashiers());
+        idle.addAll(casino.getSlotMachines());
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long before = cpuTime(threads, idle);
+        Thread.sleep(seconds * 1000);
+        long used = (cpuTime(threads, idle) - before) / 1_000_000;
+
+        casino.close();
+        System.out.printf("%d idle agents used %d ms of CPU in %d s%n", idle.size(), used, seconds);
+        if (used > MAX_IDLE_CPU) {
+            System.out.println("FAILED: idle agents are spinning");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    private static long cpuTime(ThreadMXBean threads, List<Agent> agents) {
+        long total = 0;
+        for (Agent agent : agents) total += Math.max(threads.getThreadCpuTime(agent.getWorker().threadId()), 0);
+        return total;
+    }
+}
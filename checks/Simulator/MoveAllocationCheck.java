@@ -0,0 +1,40 @@
+package Simulator;
+
+import Calc.Vector2D;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures what a walking step of a player allocates and how long it takes.
+ * The step is the player's package level move(), called directly so nothing
+ * else runs in between. Fails if a step allocates.
+ * <p>
+ * Usage: java Simulator.MoveAllocationCheck [steps]
+ */
+public class MoveAllocationCheck {
+    public static void main(String[] args) {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        Casino casino = new Casino(1, 0, 0, 0, 1, 0);
+        Player player = casino.getPlayers().get(0);
+
+        //Far enough to keep walking for the whole run
+        player.setDirection(new Vector2D(1e9f, 1e9f), PlayerState.IN_LOBBY);
+        for (int s = 0; s < steps; s++) player.move();
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int s = 0; s < steps; s++) player.move();
+        long nanos = System.nanoTime() - start;
+        bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+        System.out.printf("%d steps: %.2f bytes/step, %.1f ns/step%n", steps, (double) bytes / steps, (double) nanos / steps);
+        if (bytes >= steps) {
+            System.out.println("FAILED: a walking step allocates");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
@@ -0,0 +1,67 @@
+package Simulator;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several threads seat players through Casino.findCroupier until every seat
+ * of every table is taken, over a number of rounds. Reports the seats taken
+ * per second and fails if a table ever took more players than it has seats.
+ * The croupiers are not started, the tables are opened again between the
+ * rounds with Croupier.reopenTable.
+ * <p>
+ * Usage: java Simulator.SeatingBench [threads] [tables] [rounds]
+ */
+public class SeatingBench {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int tables = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int seats = 5;
+
+        Casino casino = new Casino(tables * seats * 2, 0, 0, tables, seats, 0);
+        List<Player> players = casino.getPlayers();
+        for (Player player : players) player.pay(Integer.MAX_VALUE / 2);
+
+        AtomicLong seated = new AtomicLong();
+        long nanos = 0;
+        int overbooked = 0;
+        for (int round = 0; round < rounds; round++) {
+            Map<Croupier, AtomicInteger> taken = new IdentityHashMap<>();
+            for (Croupier croupier : casino.getCroupiers()) {
+                croupier.reopenTable();
+                taken.put(croupier, new AtomicInteger());
+            }
+
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int first = t;
+                workers[t] = new Thread(() -> {
+                    for (int p = first; p < players.size(); p += threads) {
+                        Croupier croupier = casino.findCroupier(players.get(p));
+                        if (croupier == null) return;
+                        taken.get(croupier).incrementAndGet();
+                        seated.incrementAndGet();
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread worker : workers) worker.join();
+            nanos += System.nanoTime() - start;
+
+            for (AtomicInteger count : taken.values()) if (count.get() > seats) overbooked++;
+        }
+
+        System.out.printf("%d threads, %d tables of %d seats, %d rounds: %.0f seats/s, %d overbooked tables%n",
+                threads, tables, seats, rounds, seated.get() / (nanos / 1e9), overbooked);
+        if (overbooked > 0) {
+            System.out.println("FAILED: a table took more players than it has seats");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
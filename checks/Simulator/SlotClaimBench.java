@@ -0,0 +1,60 @@
+package Simulator;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Several threads cycle players through the slot machines, each claim is
+ * followed by leaving the machine. Reports the claims per second and fails if
+ * a machine was ever held by two players at once.
+ * <p>
+ * Usage: java Simulator.SlotClaimBench [threads] [players] [machines] [seconds]
+ */
+public class SlotClaimBench {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        int machines = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 3;
+
+        Casino casino = new Casino(players, 0, machines, 0, 1, 0);
+        List<Player> playerList = casino.getPlayers();
+        Map<SlotMachine, AtomicInteger> holders = new IdentityHashMap<>();
+        for (SlotMachine machine : casino.getSlotMachines()) holders.put(machine, new AtomicInteger());
+
+        AtomicLong claims = new AtomicLong();
+        AtomicLong doubleClaims = new AtomicLong();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            workers[t] = new Thread(() -> {
+                long claimed = 0;
+                for (int p = first; System.nanoTime() < deadline; p = (p + threads) % players) {
+                    SlotMachine machine = casino.findSlotMachine(playerList.get(p));
+                    if (machine == null) continue;
+
+                    AtomicInteger holder = holders.get(machine);
+                    if (holder.incrementAndGet() != 1) doubleClaims.incrementAndGet();
+                    holder.decrementAndGet();
+                    machine.leaveMachine();
+                    claimed++;
+                }
+                claims.addAndGet(claimed);
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        System.out.printf("%d threads, %d players, %d machines: %.0f claims/s, %d double claims%n",
+                threads, players, machines, (double) claims.get() / seconds, doubleClaims.get());
+        if (doubleClaims.get() > 0) {
+            System.out.println("FAILED: a machine was handed to two players");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+}
@@ -0,0 +1,36 @@
+package Simulator;
+
+import java.util.List;
+
+/**
+ * Runs a casino day on the virtual clock and checks that every agent left
+ * the state counters, and the player store, once the day is over.
+ * <p>
+ * Usage: java Simulator.StateCounterCheck [players] [simulated seconds]
+ */
+public class StateCounterCheck {
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        long duration = (args.length > 1 ? Long.parseLong(args[1]) : 60) * 1000;
+
+        Casino casino = new Casino(players, 4, 8, 4, 5, 0);
+        casino.simulate(duration);
+
+        List<StateCounter<?>> counters = List.of(casino.getPlayerStates(), casino.getCashierStates(),
+                casino.getSlotMachineStates(), casino.getCroupierStates());
+        boolean failed = false;
+        for (StateCounter<?> counter : counters) {
+            long total = counter.snapshot().values().stream().mapToLong(Long::longValue).sum();
+            System.out.println(counter);
+            if (total != 0) failed = true;
+        }
+        int[] stored = casino.getPlayerStore().countStates();
+        for (int count : stored) if (count != 0) failed = true;
+
+        if (failed) {
+            System.out.println("FAILED: agents still counted after the casino closed");
+            System.exit(1);
+        }
+        System.out.println("OK: every counter is back to zero");
+    }
+}